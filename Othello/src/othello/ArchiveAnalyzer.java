@@ -0,0 +1,503 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link GameRecordWriter} 形式の棋譜ファイル（アーカイブ）を集計する分析プログラム。<br>
+ * ファイルはメモリマップで参照し、棋譜の区切りごとに約1MBずつに分けて複数スレッドで再現します。
+ * 再現はスレッドごとに使い回す盤面で{@link Board#makeMove}により進め、{@link Board#unmakeMove}で初期配置に戻すため、
+ * 手ごと・対局ごとのオブジェクトは作成しません。処理中の区切りの数には上限があり、ファイルの大きさに関係なく使用メモリは一定です。<br>
+ * 駒数は裏返した駒の数から求め、盤面は数え直しません。棋譜は正しいものとして検証しません（検証は {@link GameRecordReader} で行えます）。<br>
+ * 集計内容（マス数ごと）：勝率、平均手数、初手ごとの勝率、駒差（黒 - 白）の分布。処理中は途中経過を出力します。<br>
+ * 引数：スレッド数 棋譜ファイル…
+ */
+public class ArchiveAnalyzer {
+
+	// 1回でマップするバイト数
+	private static final long WINDOW_BYTES = 1L << 30;
+	// 1スレッドが一度に処理するバイト数の目安
+	private static final int BATCH_BYTES = 1 << 20;
+	// スレッドあたりの処理待ちの区切りの上限
+	private static final int BATCHES_PER_THREAD = 4;
+	// 途中経過を出力する間隔（秒）
+	private static final int PROGRESS_INTERVAL_SECONDS = 10;
+	// 駒差の分布を出力する区間の数
+	private static final int HISTOGRAM_BINS = 16;
+
+	// 結果の添字
+	private static final int BLACK_WIN = 0;
+	private static final int WHITE_WIN = 1;
+	private static final int DRAW = 2;
+
+	private final int threadCount;
+	// スレッドごとの再現用の盤面と集計（空いているものを取得して使う）
+	private final BlockingQueue<Worker> workers;
+	private final List<Worker> allWorkers = new ArrayList<>();
+	// 処理待ちの区切りの数の上限
+	private final Semaphore pending;
+	// 途中経過
+	private final AtomicLong finishedGames = new AtomicLong();
+	private final AtomicLong finishedMoves = new AtomicLong();
+	private final AtomicLong finishedBlackWins = new AtomicLong();
+	// 最初に発生したエラー
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/**
+	 * @param threadCount スレッド数
+	 */
+	ArchiveAnalyzer(int threadCount) {
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("スレッド数は1以上を指定してください。");
+		}
+		this.threadCount = threadCount;
+		this.workers = new ArrayBlockingQueue<>(threadCount);
+		for (int index = 0; index < threadCount; index++) {
+			Worker worker = new Worker();
+			workers.add(worker);
+			allWorkers.add(worker);
+		}
+		this.pending = new Semaphore(threadCount * BATCHES_PER_THREAD);
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length < 2) {
+			throw new IllegalArgumentException("引数：スレッド数 棋譜ファイル…");
+		}
+		List<Path> paths = new ArrayList<>();
+		for (int index = 1; index < args.length; index++) {
+			paths.add(Paths.get(args[index]));
+		}
+		long start = System.nanoTime();
+		Stats stats = new ArchiveAnalyzer(Integer.parseInt(args[0])).analyze(paths);
+		long elapsed = System.nanoTime() - start;
+		stats.print();
+		print(String.format("時間：%d ms（%.1f百万手/秒）", elapsed / 1_000_000,
+				stats.getMoves() * 1000.0 / Math.max(1, elapsed)));
+	}
+
+	/**
+	 * 棋譜ファイルを全て集計する。
+	 * @param paths 棋譜ファイル
+	 * @return 集計結果
+	 * @throws IOException ファイルが読めない場合や形式が不正な場合
+	 */
+	Stats analyze(List<Path> paths) throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		long start = System.nanoTime();
+		long[] nextProgress = { start + TimeUnit.SECONDS.toNanos(PROGRESS_INTERVAL_SECONDS) };
+		try {
+			for (Path path : paths) {
+				scan(path, executor, start, nextProgress);
+			}
+			executor.shutdown();
+			while (!executor.awaitTermination(PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS)) {
+				printProgress(start);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		Throwable error = failure.get();
+		if (error != null) {
+			throw new IllegalStateException("棋譜の集計中にエラーが発生しました。", error);
+		}
+		Stats total = new Stats();
+		for (Worker worker : allWorkers) {
+			total.add(worker.stats);
+		}
+		return total;
+	}
+
+	/**
+	 * ファイルを棋譜の区切りごとに分け、区切りごとに集計を依頼する。
+	 */
+	private void scan(Path path, ExecutorService executor, long start, long[] nextProgress)
+			throws IOException, InterruptedException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					Math.min(fileSize, GameRecordWriter.HEADER_BYTES));
+			if (fileSize < GameRecordWriter.HEADER_BYTES || header.getInt(0) != GameRecordWriter.MAGIC
+					|| header.getInt(4) != GameRecordWriter.VERSION) {
+				throw new IOException("棋譜ファイルの形式が不正です：" + path);
+			}
+			long windowStart = GameRecordWriter.HEADER_BYTES;
+			while (windowStart < fileSize) {
+				int limit = (int) Math.min(WINDOW_BYTES, fileSize - windowStart);
+				boolean last = windowStart + limit == fileSize;
+				ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, limit);
+				int position = 0;
+				int batchStart = 0;
+				while (position < limit) {
+					int length = recordLength(window, position, limit);
+					if (length < 0) {
+						if (last) {
+							throw new IOException("棋譜ファイルが途中で切れています：" + path);
+						}
+						// 棋譜がマップした範囲をまたぐ場合は、その棋譜の先頭から次の範囲をマップする。
+						break;
+					}
+					position += length;
+					if (position - batchStart >= BATCH_BYTES) {
+						submit(executor, window, batchStart, position);
+						batchStart = position;
+						long now = System.nanoTime();
+						if (now >= nextProgress[0]) {
+							printProgress(start);
+							nextProgress[0] = now + TimeUnit.SECONDS.toNanos(PROGRESS_INTERVAL_SECONDS);
+						}
+					}
+				}
+				if (position > batchStart) {
+					submit(executor, window, batchStart, position);
+				}
+				windowStart += position;
+			}
+		}
+	}
+
+	/**
+	 * 棋譜1件のバイト数を求める。
+	 * @return バイト数（棋譜が limit までに収まらない場合は-1）
+	 */
+	private static int recordLength(ByteBuffer buffer, int position, int limit) throws IOException {
+		int cursor = position;
+		if (cursor >= limit) {
+			return -1;
+		}
+		int squareCount = buffer.get(cursor++) & GameRecordWriter.SQUARE_COUNT_MASK;
+		if (squareCount < 4) {
+			throw new IOException("棋譜のマス数が不正です：" + squareCount);
+		}
+		int moveCount = 0;
+		for (int shift = 0; ; shift += 7) {
+			if (cursor >= limit) {
+				return -1;
+			}
+			int value = buffer.get(cursor++) & 0xff;
+			moveCount |= (value & 0x7f) << shift;
+			if (value < 0x80) {
+				break;
+			}
+		}
+		int width = squareCount <= GameRecordWriter.MAX_SQUARE_COUNT_FOR_BYTE ? 1 : 2;
+		long end = cursor + (long) moveCount * width;
+		return end > limit ? -1 : (int) (end - position);
+	}
+
+	private void submit(ExecutorService executor, ByteBuffer window, int start, int end) throws InterruptedException {
+		pending.acquire();
+		executor.execute(() -> {
+			try {
+				Worker worker = workers.take();
+				try {
+					worker.replay(window, start, end);
+				} finally {
+					workers.add(worker);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException e) {
+				failure.compareAndSet(null, e);
+			} finally {
+				pending.release();
+			}
+		});
+	}
+
+	private void printProgress(long start) {
+		long games = finishedGames.get();
+		long elapsed = System.nanoTime() - start;
+		print(String.format("途中経過：%d局・%d手（%.1f百万手/秒）・黒の勝率%.2f%%", games, finishedMoves.get(),
+				finishedMoves.get() * 1000.0 / Math.max(1, elapsed),
+				games == 0 ? 0.0 : finishedBlackWins.get() * 100.0 / games));
+	}
+
+	/**
+	 * 1スレッド分の再現用の盤面と集計。
+	 */
+	private final class Worker {
+
+		// [マス数][初期配置の対角線上が黒なら1] → 初期配置の盤面
+		private final Board[][] boards = new Board[GameRecordWriter.MAX_SQUARE_COUNT + 1][2];
+		private final Stats stats = new Stats();
+
+		/**
+		 * 区切り内の棋譜を全て再現して集計する。
+		 */
+		void replay(ByteBuffer buffer, int start, int end) {
+			long games = 0;
+			long moves = 0;
+			long blackWins = 0;
+			int position = start;
+			while (position < end) {
+				int flags = buffer.get(position++) & 0xff;
+				int squareCount = flags & GameRecordWriter.SQUARE_COUNT_MASK;
+				int moveCount = 0;
+				for (int shift = 0; ; shift += 7) {
+					int value = buffer.get(position++) & 0xff;
+					moveCount |= (value & 0x7f) << shift;
+					if (value < 0x80) {
+						break;
+					}
+				}
+				boolean wide = squareCount > GameRecordWriter.MAX_SQUARE_COUNT_FOR_BYTE;
+				int passSquare = GameRecordWriter.passSquare(squareCount);
+				Board board = board(squareCount, (flags & GameRecordWriter.BLACK_DIAGONAL) != 0);
+				Piece piece = (flags & GameRecordWriter.WHITE_FIRST) != 0 ? Piece.WHITE : Piece.BLACK;
+				int blackCount = 2;
+				int whiteCount = 2;
+				int firstMove = -1;
+				int placed = 0;
+				for (int index = 0; index < moveCount; index++) {
+					int move = buffer.get(position++) & 0xff;
+					if (wide) {
+						move = move << 8 | buffer.get(position++) & 0xff;
+					}
+					if (move != passSquare) {
+						int flips = board.makeMove(move % squareCount, move / squareCount, piece);
+						placed++;
+						if (piece == Piece.BLACK) {
+							blackCount += flips + 1;
+							whiteCount -= flips;
+						} else {
+							whiteCount += flips + 1;
+							blackCount -= flips;
+						}
+						if (firstMove < 0) {
+							firstMove = move;
+						}
+					}
+					piece = piece.opponent();
+				}
+				// 次の棋譜のために初期配置に戻す。
+				for (int index = 0; index < placed; index++) {
+					board.unmakeMove();
+				}
+				stats.record(squareCount, placed, moveCount - placed, firstMove, blackCount - whiteCount);
+				games++;
+				moves += moveCount;
+				if (blackCount > whiteCount) {
+					blackWins++;
+				}
+			}
+			finishedGames.addAndGet(games);
+			finishedMoves.addAndGet(moves);
+			finishedBlackWins.addAndGet(blackWins);
+		}
+
+		/**
+		 * 初期配置の盤面を取得する（8×8はビット演算の盤面、それ以外は2次元配列の盤面）。
+		 */
+		private Board board(int squareCount, boolean blackDiagonal) {
+			int variant = blackDiagonal ? 1 : 0;
+			Board board = boards[squareCount][variant];
+			if (board == null) {
+				board = squareCount == BitBoard.SIZE ? new BitBoard() : new Board(squareCount);
+				board.init(blackDiagonal ? Piece.BLACK : Piece.WHITE);
+				boards[squareCount][variant] = board;
+			}
+			return board;
+		}
+	}
+
+	/**
+	 * 集計結果（マス数ごと）。
+	 */
+	static final class Stats {
+
+		private final SizeStats[] sizes = new SizeStats[GameRecordWriter.MAX_SQUARE_COUNT + 1];
+
+		/**
+		 * 1局分を集計する。
+		 * @param squareCount マス数
+		 * @param placed 配置した手数
+		 * @param passes パスの回数
+		 * @param firstMove 初手のマス（配置していない場合は-1）
+		 * @param difference 最後の駒差（黒 - 白）
+		 */
+		void record(int squareCount, int placed, int passes, int firstMove, int difference) {
+			SizeStats size = sizes[squareCount];
+			if (size == null) {
+				size = new SizeStats(squareCount);
+				sizes[squareCount] = size;
+			}
+			size.record(placed, passes, firstMove, difference);
+		}
+
+		void add(Stats other) {
+			for (int squareCount = 0; squareCount < sizes.length; squareCount++) {
+				SizeStats size = other.sizes[squareCount];
+				if (size == null) {
+					continue;
+				}
+				if (sizes[squareCount] == null) {
+					sizes[squareCount] = new SizeStats(squareCount);
+				}
+				sizes[squareCount].add(size);
+			}
+		}
+
+		long getGames() {
+			long games = 0;
+			for (SizeStats size : sizes) {
+				games += size == null ? 0 : size.games;
+			}
+			return games;
+		}
+
+		/**
+		 * パスを含む手数の合計
+		 */
+		long getMoves() {
+			long moves = 0;
+			for (SizeStats size : sizes) {
+				moves += size == null ? 0 : size.placed + size.passes;
+			}
+			return moves;
+		}
+
+		void print() {
+			for (SizeStats size : sizes) {
+				if (size != null) {
+					size.print();
+				}
+			}
+		}
+	}
+
+	/**
+	 * 1つのマス数の集計結果。
+	 */
+	private static final class SizeStats {
+
+		private final int squareCount;
+		private long games;
+		private long placed;
+		private long passes;
+		private final long[] results = new long[3];
+		// [初手のマス × 3 + 結果]
+		private final long[] firstMoves;
+		// [駒差 + マス数の2乗] → 局数
+		private final long[] differences;
+
+		SizeStats(int squareCount) {
+			this.squareCount = squareCount;
+			this.firstMoves = new long[squareCount * squareCount * 3];
+			this.differences = new long[squareCount * squareCount * 2 + 1];
+		}
+
+		void record(int placed, int passes, int firstMove, int difference) {
+			int result = difference > 0 ? BLACK_WIN : difference < 0 ? WHITE_WIN : DRAW;
+			games++;
+			this.placed += placed;
+			this.passes += passes;
+			results[result]++;
+			if (firstMove >= 0) {
+				firstMoves[firstMove * 3 + result]++;
+			}
+			differences[difference + squareCount * squareCount]++;
+		}
+
+		void add(SizeStats other) {
+			games += other.games;
+			placed += other.placed;
+			passes += other.passes;
+			for (int index = 0; index < results.length; index++) {
+				results[index] += other.results[index];
+			}
+			for (int index = 0; index < firstMoves.length; index++) {
+				firstMoves[index] += other.firstMoves[index];
+			}
+			for (int index = 0; index < differences.length; index++) {
+				differences[index] += other.differences[index];
+			}
+		}
+
+		void print() {
+			Utils.print(String.format("%d×%d：%d局・平均%.2f手（うちパス%.2f回）・黒の勝率%.2f%%・白の勝率%.2f%%・引き分け%.2f%%",
+					squareCount, squareCount, games, (double) (placed + passes) / games, (double) passes / games,
+					rate(results[BLACK_WIN], games), rate(results[WHITE_WIN], games), rate(results[DRAW], games)));
+			Utils.print("初手\t局数\t黒の勝率\t白の勝率\t引き分け");
+			for (int square = 0; square < squareCount * squareCount; square++) {
+				long count = firstMoves[square * 3 + BLACK_WIN] + firstMoves[square * 3 + WHITE_WIN]
+						+ firstMoves[square * 3 + DRAW];
+				if (count > 0) {
+					Utils.print(String.format("%d列の%d行\t%d\t%.2f%%\t%.2f%%\t%.2f%%", square % squareCount,
+							square / squareCount, count, rate(firstMoves[square * 3 + BLACK_WIN], count),
+							rate(firstMoves[square * 3 + WHITE_WIN], count), rate(firstMoves[square * 3 + DRAW], count)));
+				}
+			}
+			printDifferences();
+		}
+
+		/**
+		 * 駒差の平均・標準偏差・分位点と、区間ごとの分布を出力する。
+		 */
+		private void printDifferences() {
+			int offset = squareCount * squareCount;
+			double mean = 0;
+			int min = Integer.MAX_VALUE;
+			int max = Integer.MIN_VALUE;
+			for (int index = 0; index < differences.length; index++) {
+				if (differences[index] > 0) {
+					mean += (double) (index - offset) * differences[index] / games;
+					min = Math.min(min, index - offset);
+					max = Math.max(max, index - offset);
+				}
+			}
+			double variance = 0;
+			for (int index = 0; index < differences.length; index++) {
+				double deviation = index - offset - mean;
+				variance += deviation * deviation * differences[index] / games;
+			}
+			Utils.print(String.format("駒差（黒 - 白）：平均%+.2f・標準偏差%.2f・最小%+d・10%%点%+d・中央値%+d・90%%点%+d・最大%+d", mean,
+					Math.sqrt(variance), min, percentile(0.1), percentile(0.5), percentile(0.9), max));
+			int width = Math.max(1, (max - min + HISTOGRAM_BINS) / HISTOGRAM_BINS);
+			for (int from = min; from <= max; from += width) {
+				long count = 0;
+				for (int difference = from; difference < from + width && difference <= max; difference++) {
+					count += differences[difference + offset];
+				}
+				Utils.print(String.format("%+d～%+d\t%d\t%.2f%%", from, Math.min(max, from + width - 1), count,
+						rate(count, games)));
+			}
+		}
+
+		/**
+		 * 駒差の分位点
+		 */
+		private int percentile(double fraction) {
+			long target = (long) Math.ceil(games * fraction);
+			long cumulative = 0;
+			for (int index = 0; index < differences.length; index++) {
+				cumulative += differences[index];
+				if (cumulative >= Math.max(1, target)) {
+					return index - squareCount * squareCount;
+				}
+			}
+			return 0;
+		}
+
+		private static double rate(long count, long total) {
+			return total == 0 ? 0.0 : count * 100.0 / total;
+		}
+	}
+
+}
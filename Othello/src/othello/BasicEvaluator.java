@@ -0,0 +1,73 @@
+package othello;
+
+/**
+ * 着手可能数（機動力）・隅の駒数・駒数で盤面を評価する評価関数。<br>
+ * 序盤・中盤は機動力と隅を重視し、空きマスが減るほど駒数の比重を上げます。<br>
+ * 8×8の {@link BitBoard} では、潜在的な着手可能数と確定石の数も {@link BoardFeatures} で求めて加えます。
+ */
+public class BasicEvaluator implements Evaluator {
+
+	// 着手可能数の差1つあたりの評価値
+	static final int MOBILITY_WEIGHT = 10;
+	// 隅の駒1つあたりの評価値
+	static final int CORNER_WEIGHT = 100;
+	// 8×8の隅のマス
+	private static final long CORNERS = 0x8100000000000081L;
+	// 潜在的な着手可能数の差1つあたりの評価値
+	static final int POTENTIAL_MOBILITY_WEIGHT = 4;
+	// 確定石の差1つあたりの評価値
+	static final int STABLE_WEIGHT = 20;
+
+	@Override
+	public int evaluate(Board board, Piece piece) {
+		Piece opponent = piece.opponent();
+		int squareCount = board.getSquareCount();
+		int squares = squareCount * squareCount;
+
+		if (board instanceof BitBoard) {
+			return evaluate((BitBoard) board, piece);
+		}
+		int mobility = board.legalMoveCount(piece) - board.legalMoveCount(opponent);
+		int corners = corner(board, 0, 0, piece)
+				+ corner(board, squareCount - 1, 0, piece)
+				+ corner(board, 0, squareCount - 1, piece)
+				+ corner(board, squareCount - 1, squareCount - 1, piece);
+		int discs = board.count(piece) - board.count(opponent);
+
+		// 駒数の重みは、空きマスが盤面の1/4を切ったあたりから効かせる。
+		int empties = board.count(Piece.EMPTY);
+		int discWeight = empties * 4 < squares ? 4 : 0;
+
+		return mobility * MOBILITY_WEIGHT + corners * CORNER_WEIGHT + discs * discWeight;
+	}
+
+	/**
+	 * 8×8の盤面の評価（特徴量はビット演算で求める）
+	 */
+	private static int evaluate(BitBoard board, Piece piece) {
+		long own = piece.is(Piece.BLACK) ? board.getBlack() : board.getWhite();
+		long opponent = piece.is(Piece.BLACK) ? board.getWhite() : board.getBlack();
+		int mobility = BoardFeatures.mobility(own, opponent) - BoardFeatures.mobility(opponent, own);
+		int potentialMobility = BoardFeatures.potentialMobility(own, opponent)
+				- BoardFeatures.potentialMobility(opponent, own);
+		int corners = Long.bitCount(own & CORNERS) - Long.bitCount(opponent & CORNERS);
+		int stable = BoardFeatures.stability(own, opponent) - BoardFeatures.stability(opponent, own);
+		int discs = Long.bitCount(own) - Long.bitCount(opponent);
+		int empties = Long.bitCount(~(own | opponent));
+		int discWeight = empties * 4 < BitBoard.SIZE * BitBoard.SIZE ? 4 : 0;
+		return mobility * MOBILITY_WEIGHT + potentialMobility * POTENTIAL_MOBILITY_WEIGHT + corners * CORNER_WEIGHT
+				+ stable * STABLE_WEIGHT + discs * discWeight;
+	}
+
+	/**
+	 * 隅のマスの評価
+	 * @return 自分の駒なら1、相手の駒なら-1、空なら0
+	 */
+	private static int corner(Board board, int column, int row, Piece piece) {
+		if (board.squareIsEmpty(column, row)) {
+			return 0;
+		}
+		return board.getPiece(column, row).is(piece) ? 1 : -1;
+	}
+
+}
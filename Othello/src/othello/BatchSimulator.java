@@ -0,0 +1,270 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CPU同士の対局を入力待ち・待ち時間・盤面表示なしで並行に行い、集計結果を出力する一括対局モード。<br>
+ * 各対局の乱数のシードは「シード + 対局番号」をかき混ぜた値で決まり、探索の状態は対局ごとに消去するため、スレッド数に関係なく同じ結果になります
+ * （探索の思考ルーチンが持ち時間内に指定の深さまで読める場合）。<br>
+ * 引数：マス数 対局数 シード スレッド数 [黒の思考ルーチン] [白の思考ルーチン]
+ * （省略時は 8 1000 1 CPUコア数 random random）<br>
+ * 思考ルーチンは {@link StrategyRegistry} に登録された名前（「random」「search:深さ」など）で指定します。<br>
+ * システムプロパティ othello.events.log・othello.events.stats を指定すると、対局の出来事を記録・集計します
+ * （{@link GameEventBus#subscribeFromProperties}、待ち行列が一杯の場合の扱いは省略時 DROP で、対局を待たせません）。<br>
+ * システムプロパティ othello.record にファイルを指定すると、全対局の棋譜を {@link GameRecordWriter} の形式で書き出します。<br>
+ * システムプロパティ othello.journal にファイルを指定すると、対局中の手順を {@link GameJournal} に追記します
+ * （一括対局は再開しないため、中断した対局はジャーナルに残ります）。
+ */
+public class BatchSimulator {
+
+	private final int squareCount;
+	private final int games;
+	private final long seed;
+	private final int threadCount;
+	private final String blackSpec;
+	private final String whiteSpec;
+
+	// 次に対局する対局番号
+	private final AtomicInteger nextGame = new AtomicInteger();
+
+	/**
+	 * @param squareCount 縦と横のマス数
+	 * @param games 対局数
+	 * @param seed 乱数のシード
+	 * @param threadCount 並行に対局するスレッド数
+	 * @param blackSpec 黒の思考ルーチン
+	 * @param whiteSpec 白の思考ルーチン
+	 */
+	BatchSimulator(int squareCount, int games, long seed, int threadCount, String blackSpec, String whiteSpec) {
+		if (squareCount < 4 || squareCount > 50 || squareCount % 2 == 1) {
+			throw new IllegalArgumentException("マス数は4以上50以下の偶数を指定してください。");
+		}
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("スレッド数は1以上を指定してください。");
+		}
+		// 指定が正しいかを対局の開始前に確かめる。
+		StrategyRegistry.create(blackSpec, new Random());
+		StrategyRegistry.create(whiteSpec, new Random());
+		this.squareCount = squareCount;
+		this.games = games;
+		this.seed = seed;
+		this.threadCount = threadCount;
+		this.blackSpec = blackSpec;
+		this.whiteSpec = whiteSpec;
+	}
+
+	public static void main(String[] args) {
+		BatchSimulator simulator = new BatchSimulator(
+				args.length > 0 ? Integer.parseInt(args[0]) : 8,
+				args.length > 1 ? Integer.parseInt(args[1]) : 1000,
+				args.length > 2 ? Long.parseLong(args[2]) : 1,
+				args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors(),
+				args.length > 4 ? args[4] : "random",
+				args.length > 5 ? args[5] : "random");
+		simulator.run().print();
+	}
+
+	/**
+	 * 全対局を行う。
+	 * @return 集計結果
+	 */
+	Result run() {
+		nextGame.set(0);
+		GameEventBus bus = new GameEventBus();
+		StatsEventSink stats = bus.subscribeFromProperties(GameEventBus.Policy.DROP);
+		GameRecordWriter recordWriter = null;
+		GameJournal journal = null;
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			String recordPath = System.getProperty("othello.record");
+			if (recordPath != null) {
+				recordWriter = GameRecordWriter.open(Paths.get(recordPath), false);
+			}
+			journal = GameJournal.openFromProperties();
+			GameRecordWriter writer = recordWriter;
+			GameJournal gameJournal = journal;
+			List<Future<Result>> futures = new ArrayList<>();
+			// 記録・集計しない場合は出来事を発行しない。
+			GameEventBus target = bus.hasSubscribers() ? bus : null;
+			for (int index = 0; index < threadCount; index++) {
+				futures.add(executor.submit(() -> playGames(target, writer, gameJournal)));
+			}
+			Result total = new Result(squareCount);
+			for (Future<Result> future : futures) {
+				total.add(future.get());
+			}
+			if (recordWriter != null) {
+				recordWriter.close();
+			}
+			if (journal != null) {
+				journal.close();
+			}
+			total.elapsedNanos = System.nanoTime() - start;
+			bus.close();
+			if (bus.getDropped() > 0) {
+				Utils.print(String.format("待ち行列が一杯のため記録・集計しなかった出来事：%d件", bus.getDropped()));
+			}
+			if (stats != null) {
+				stats.print();
+			}
+			return total;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("一括対局が中断されました。", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("一括対局中にエラーが発生しました。", e.getCause());
+		} catch (IOException e) {
+			throw new UncheckedIOException("棋譜ファイルまたはジャーナルを書き込めませんでした。", e);
+		} finally {
+			executor.shutdown();
+			bus.close();
+			closeQuietly(recordWriter);
+			closeQuietly(journal);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		if (closeable == null) {
+			return;
+		}
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// 書き込みに失敗した場合の例外は既に送出しているので、ここでは無視する。
+		}
+	}
+
+	/**
+	 * 対局番号を1つずつ取得して、全対局が終わるまで対局する（スレッドごとに呼び出す）。
+	 * @param bus 出来事の発行先（発行しない場合はnull）
+	 * @param writer 棋譜の書き出し先（記録しない場合はnull）
+	 * @param journal 手順の追記先（追記しない場合はnull）
+	 * @return このスレッドで行った対局の集計結果
+	 */
+	private Result playGames(GameEventBus bus, GameRecordWriter writer, GameJournal journal) {
+		Result result = new Result(squareCount);
+		Random random = new Random();
+		// プレイヤー（思考ルーチン）はスレッド内で使い回し、対局ごとにセッションを作成する。
+		Player black = new Player("黒", Piece.BLACK, true, StrategyRegistry.create(blackSpec, random));
+		Player white = new Player("白", Piece.WHITE, true, StrategyRegistry.create(whiteSpec, random));
+		int game;
+		while ((game = nextGame.getAndIncrement()) < games) {
+			random.setSeed(mixSeed(seed + game));
+			// 前の対局の置換表などが着手に影響しないように、探索の状態を消去する。
+			resetSearch(black);
+			resetSearch(white);
+			Board board = Board.create(squareCount);
+			board.init();
+			GameOutput output = bus == null ? GameOutput.NONE : new EventBusOutput(bus, game, false);
+			if (writer != null) {
+				output = new RecordingOutput(output, writer, board, Piece.BLACK);
+			}
+			if (journal != null) {
+				output = new JournalOutput(output, journal.start(board, Piece.BLACK));
+			}
+			GameSession session = new GameSession(board, black, white, output);
+			while (!session.isOver()) {
+				session.playAutomatically();
+			}
+			result.record(board.count(Piece.BLACK) - board.count(Piece.WHITE));
+		}
+		return result;
+	}
+
+	private static void resetSearch(Player player) {
+		if (player.getStrategy() instanceof SearchStrategy) {
+			((SearchStrategy) player.getStrategy()).reset();
+		}
+	}
+
+	/**
+	 * 一括対局の集計結果。
+	 */
+	static final class Result {
+
+		private final int squareCount;
+		private int games;
+		private int blackWins;
+		private int whiteWins;
+		private int draws;
+		// 駒数の差（黒 - 白）の合計
+		private long discDifference;
+		private long elapsedNanos;
+
+		Result(int squareCount) {
+			this.squareCount = squareCount;
+		}
+
+		private void record(int difference) {
+			games++;
+			if (difference > 0) {
+				blackWins++;
+			} else if (difference < 0) {
+				whiteWins++;
+			} else {
+				draws++;
+			}
+			discDifference += difference;
+		}
+
+		private void add(Result other) {
+			games += other.games;
+			blackWins += other.blackWins;
+			whiteWins += other.whiteWins;
+			draws += other.draws;
+			discDifference += other.discDifference;
+		}
+
+		int getGames() {
+			return games;
+		}
+
+		int getBlackWins() {
+			return blackWins;
+		}
+
+		int getWhiteWins() {
+			return whiteWins;
+		}
+
+		int getDraws() {
+			return draws;
+		}
+
+		double getAverageDiscDifference() {
+			return games == 0 ? 0.0 : (double) discDifference / games;
+		}
+
+		double getGamesPerSecond() {
+			return games * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+		}
+
+		void print() {
+			Utils.print(String.format("%dマス・%d局", squareCount, games));
+			Utils.print(String.format("黒の勝率：%.2f%%（%d勝）", rate(blackWins), blackWins));
+			Utils.print(String.format("白の勝率：%.2f%%（%d勝）", rate(whiteWins), whiteWins));
+			Utils.print(String.format("引き分け：%.2f%%（%d局）", rate(draws), draws));
+			Utils.print(String.format("平均駒差（黒 - 白）：%+.2f", getAverageDiscDifference()));
+			Utils.print(String.format("時間：%d ms（%.1f局/秒）", elapsedNanos / 1_000_000, getGamesPerSecond()));
+		}
+
+		private double rate(int count) {
+			return games == 0 ? 0.0 : count * 100.0 / games;
+		}
+	}
+
+}
@@ -1,77 +1,96 @@
 package othello;
 
-import static othello.GameManager.*;
-import static othello.Utils.*;
-
-import java.util.StringJoiner;
+import java.util.Arrays;
 
 public class Board {
 
+	// 八方向の{列, 行}の差分
+	private static final int[][] DIRECTIONS = {
+			{ -1, -1 }, { 0, -1 }, { 1, -1 },
+			{ -1, 0 }, { 1, 0 },
+			{ -1, 1 }, { 0, 1 }, { 1, 1 } };
+
 	// 盤面
 	private Piece[][] board;
 	// 列と行のマス数
 	private int squareCount;
+	// 局面のハッシュ値（Zobristハッシュ）
+	private long hash;
+	// ハッシュ値の計算に使う乱数表
+	private final long[] zobristKeys;
+	// 着手の取り消し用の記録（最初の着手時に作成する）
+	private UndoStack undoStack;
+	// マスの変更の通知先（通知しない場合はnull）
+	private CellListener cellListener;
 
 	/**
 	 * 渡された引数の正方形の盤面を作成します。
 	 */
 	Board(int squareCount) {
+		this(squareCount, true);
+	}
+
+	/**
+	 * 渡された引数の正方形の盤面を作成します。<br>
+	 * マスの状態を独自の形式で保持するサブクラスは、駒の配列を作成せずに盤面を作成できます。
+	 * その場合、駒の配列を使う処理（{@link #getPiece}・{@link #putPiece}・{@link #getBoard}・{@link #setBoard} など）は
+	 * 全てサブクラスで実装してください。
+	 * @param squareCount 縦と横のマス数
+	 * @param withCells 駒の配列を作成する場合はtrue
+	 */
+	protected Board(int squareCount, boolean withCells) {
 		this.squareCount = squareCount;
+		this.zobristKeys = Zobrist.keys(squareCount);
 
-		this.board = new Piece[squareCount][squareCount];
-		for (Piece[] row : board) {
-			for (int index = 0; index < row.length; index++) {
-				row[index] = Piece.EMPTY;
+		if (withCells) {
+			this.board = new Piece[squareCount][squareCount];
+			for (Piece[] row : board) {
+				for (int index = 0; index < row.length; index++) {
+					row[index] = Piece.EMPTY;
+				}
 			}
 		}
 	}
 
 	/**
-	 * 盤面の初期化処理
+	 * マス数に適した実装の盤面を作成する。
+	 * @param squareCount 縦と横のマス数
+	 * @return 盤面オブジェクト
+	 */
+	static Board create(int squareCount) {
+		if (squareCount == BitBoard.SIZE) {
+			// 標準の８×８はビット演算で処理する盤面を使用する。
+			return new BitBoard();
+		}
+		// それ以外のマス数は番兵付きの1次元配列で処理する盤面を使用する。
+		return new MailboxBoard(squareCount);
+	}
+
+	/**
+	 * 盤面の初期化処理（標準の配置として、白を左上から右下への対角線上に置く）
 	 */
 	void init() {
+		init(Piece.WHITE);
+	}
+
+	/**
+	 * 盤面の初期化処理
+	 * @param diagonalPiece 中央の左上と右下に置く駒（右上と左下には相手の駒を置く）
+	 */
+	void init(Piece diagonalPiece) {
 		// 予め中央に配置しておく。
 		int centerSquare = (squareCount / 2) - 1;
-		board[centerSquare][centerSquare] = CPU_PIECE;
-		board[centerSquare + 1][centerSquare + 1] = CPU_PIECE;
-		board[centerSquare + 1][centerSquare] = PLAYER_PIECE;
-		board[centerSquare][centerSquare + 1] = PLAYER_PIECE;
+		putPiece(centerSquare, centerSquare, diagonalPiece);
+		putPiece(centerSquare + 1, centerSquare + 1, diagonalPiece);
+		putPiece(centerSquare, centerSquare + 1, diagonalPiece.opponent());
+		putPiece(centerSquare + 1, centerSquare, diagonalPiece.opponent());
 	}
 
 	/**
 	 * 盤面の情報を表示（出力）する
 	 */
 	void displayInfo() {
-		// 位置調整の兼ね合いでハイフンを2つ入れておく。
-		String border = "  --";
-		for (int i = 0; i < squareCount; i++) {
-			border += "-----";
-		}
-		border += "---";
-
-		String verticalLine = "｜";
-
-		print(border);
-		{
-			StringJoiner joiner = new StringJoiner(verticalLine, verticalLine, verticalLine);
-			joiner.add("　");
-			for (int i = 0; i < squareCount; i++) {
-				joiner.add(convertCircleNumber(i));
-			}
-			print(joiner.toString());
-		}
-		{
-			int count = 0;
-			for (Piece[] pieces : board) {
-				StringJoiner joiner = new StringJoiner(verticalLine, verticalLine, verticalLine);
-				joiner.add(convertCircleNumber(count++));
-				for (Piece piece : pieces) {
-					joiner.add(piece.getDisp());
-				}
-				print(joiner.toString());
-			}
-		}
-		print(border);
+		new BoardRenderer().render(this);
 	}
 
 	/**
@@ -85,6 +104,16 @@ public class Board {
 		return this.board[row][column].isEmpty();
 	}
 
+	/**
+	 * 指定したマス目に配置されている駒を取得する。
+	 * @param column 列のindex値
+	 * @param row 行のindex値
+	 * @return 配置されている駒（何もなければ空）
+	 */
+	Piece getPiece(int column, int row) {
+		return this.board[row][column];
+	}
+
 	/**
 	 * 選択可能なマスかどうか
 	 * @param column 列のindex値
@@ -94,7 +123,7 @@ public class Board {
 	 */
 	boolean isSelectable(int column, int row, Piece piece) {
 		// 相手の駒
-		Piece opponentsPiece = piece.is(PLAYER_PIECE) ? CPU_PIECE : PLAYER_PIECE;
+		Piece opponentsPiece = piece.opponent();
 
 		// 八方いずれかに相手の駒があること。
 		if (checkLeft(column, row, opponentsPiece)
@@ -263,7 +292,7 @@ public class Board {
 		// 初回ループSkipフラグ
 		boolean isSkipFirst = true;
 
-		for (int index = column; index > 0; index--) {
+		for (int index = column; index >= 0; index--) {
 			// 初回は自分自身の場所を指すので、SKIPする必要がある
 			if (isSkipFirst) {
 				isSkipFirst = false;
@@ -353,7 +382,7 @@ public class Board {
 		// 初回ループSkipフラグ
 		boolean isSkipFirst = true;
 
-		for (int i = 0; column + i < squareCount && row - i > 0; i++) {
+		for (int i = 0; column + i < squareCount && row - i >= 0; i++) {
 			// 初回は自分自身の場所を指すので、SKIPする必要がある
 			if (isSkipFirst) {
 				isSkipFirst = false;
@@ -443,16 +472,87 @@ public class Board {
 	 * @param piece 配置する駒オブジェクト
 	 */
 	void putPiece(int column, int row, Piece piece) {
+		changeHash(column, row, board[row][column], piece);
+		board[row][column] = piece;
+	}
+
+	/**
+	 * 指定した箇所の相手の駒を裏返す。
+	 */
+	private void flip(int column, int row, Piece piece) {
+		changeHash(column, row, board[row][column], piece);
 		board[row][column] = piece;
 	}
 
+	/**
+	 * 指定した箇所の駒が置き換わったことを局面のハッシュ値とマスの変更の通知先に反映する。<br>
+	 * 盤面の実装は、マスを変更するたびにこのメソッドを呼び出します。
+	 * @param column 列番号
+	 * @param row 行番号
+	 * @param before 変更前の駒
+	 * @param after 変更後の駒
+	 */
+	void changeHash(int column, int row, Piece before, Piece after) {
+		int squares = squareCount * squareCount;
+		int square = row * squareCount + column;
+		hash ^= Zobrist.key(zobristKeys, squares, square, before) ^ Zobrist.key(zobristKeys, squares, square, after);
+		if (cellListener != null) {
+			cellListener.cellChanged(square, before, after);
+		}
+	}
+
+	/**
+	 * 盤面全体から局面のハッシュ値を計算し直す（マスの変更の通知先も盤面全体から計算し直させる）。
+	 */
+	void resetHash() {
+		int squares = squareCount * squareCount;
+		hash = 0L;
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				hash ^= Zobrist.key(zobristKeys, squares, row * squareCount + column, getPiece(column, row));
+			}
+		}
+		if (cellListener != null) {
+			cellListener.boardReset(this);
+		}
+	}
+
+	/**
+	 * マスの変更の通知先を設定する（盤面全体から計算させてから通知を始める）。<br>
+	 * 盤面の複製には引き継ぎません。
+	 * @param cellListener 通知先（通知をやめる場合はnull）
+	 */
+	void setCellListener(CellListener cellListener) {
+		this.cellListener = cellListener;
+		if (cellListener != null) {
+			cellListener.boardReset(this);
+		}
+	}
+
+	CellListener getCellListener() {
+		return cellListener;
+	}
+
+	/**
+	 * 局面のハッシュ値を取得する。<br>
+	 * 駒の配置だけから求めた値なので、手番は含みません。
+	 * @return Zobristハッシュ
+	 */
+	long getHash() {
+		return hash;
+	}
+
+	void setHash(long hash) {
+		this.hash = hash;
+	}
+
 	void turnOver(int column, int row, Piece piece) {
-		Piece opponent = piece.is(PLAYER_PIECE) ? CPU_PIECE : PLAYER_PIECE;
+		Piece opponent = piece.opponent();
 		// 上方向
 		if (upperDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row - i][column].is(opponent)) {
-					board[row - i][column] = piece;
+					flip(column, row - i, piece);
 				} else {
 					break;
 				}
@@ -462,7 +562,7 @@ public class Board {
 		if (lowerDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row + i][column].is(opponent)) {
-					board[row + i][column] = piece;
+					flip(column, row + i, piece);
 				} else {
 					break;
 				}
@@ -472,7 +572,7 @@ public class Board {
 		if (leftDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row][column - i].is(opponent)) {
-					board[row][column - i] = piece;
+					flip(column - i, row, piece);
 				} else {
 					break;
 				}
@@ -482,7 +582,7 @@ public class Board {
 		if (rightDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row][column + i].is(opponent)) {
-					board[row][column + i] = piece;
+					flip(column + i, row, piece);
 				} else {
 					break;
 				}
@@ -492,7 +592,7 @@ public class Board {
 		if (upperLeftDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row - i][column - i].is(opponent)) {
-					board[row - i][column - i] = piece;
+					flip(column - i, row - i, piece);
 				} else {
 					break;
 				}
@@ -502,7 +602,7 @@ public class Board {
 		if (upperRightDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row - i][column + i].is(opponent)) {
-					board[row - i][column + i] = piece;
+					flip(column + i, row - i, piece);
 				} else {
 					break;
 				}
@@ -512,7 +612,7 @@ public class Board {
 		if (lowerLeftDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row + i][column - i].is(opponent)) {
-					board[row + i][column - i] = piece;
+					flip(column - i, row + i, piece);
 				} else {
 					break;
 				}
@@ -522,7 +622,7 @@ public class Board {
 		if (lowerRightDirectionCanBeTurnedOver(column, row, opponent)) {
 			for (int i = 1; i < squareCount; i++) {
 				if (board[row + i][column + i].is(opponent)) {
-					board[row + i][column + i] = piece;
+					flip(column + i, row + i, piece);
 				} else {
 					break;
 				}
@@ -553,6 +653,192 @@ public class Board {
 		return isSkip;
 	}
 
+	/**
+	 * 着手可能なマスを列挙する。<br>
+	 * マスは「行番号 × マス数 + 列番号」の値で格納します。
+	 * @param piece 配置する駒
+	 * @param moves 格納先（マス数×マス数以上の長さが必要）
+	 * @return 着手可能なマスの数
+	 */
+	int legalMoves(Piece piece, int[] moves) {
+		int count = 0;
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				if (squareIsEmpty(column, row) && isSelectable(column, row, piece)) {
+					moves[count++] = row * squareCount + column;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 指定したマスに配置した場合に裏返る駒の数を取得する。
+	 * @param column 列番号
+	 * @param row 行番号
+	 * @param piece 配置する駒
+	 * @return 裏返る駒の数
+	 */
+	int flipCount(int column, int row, Piece piece) {
+		Piece opponent = piece.opponent();
+		int count = 0;
+		for (int[] direction : DIRECTIONS) {
+			int line = 0;
+			int targetColumn = column + direction[0];
+			int targetRow = row + direction[1];
+			while (isInside(targetColumn, targetRow) && board[targetRow][targetColumn].is(opponent)) {
+				line++;
+				targetColumn += direction[0];
+				targetRow += direction[1];
+			}
+			// 相手の駒の先に自分の駒がある場合のみ裏返せる。
+			if (isInside(targetColumn, targetRow) && board[targetRow][targetColumn].is(piece)) {
+				count += line;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 着手可能なマスの数を取得する。
+	 * @param piece 配置する駒
+	 * @return 着手可能なマスの数
+	 */
+	int legalMoveCount(Piece piece) {
+		int count = 0;
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				if (squareIsEmpty(column, row) && isSelectable(column, row, piece)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 盤面上の指定した駒の数を取得する。
+	 * @param piece 駒
+	 * @return 駒の数
+	 */
+	int count(Piece piece) {
+		int count = 0;
+		for (Piece[] pieces : getBoard()) {
+			for (Piece target : pieces) {
+				if (target.is(piece)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 盤面を複製する。
+	 * @return 同じ配置の新しい盤面オブジェクト
+	 */
+	Board copy() {
+		Board copy = new Board(squareCount);
+		for (int row = 0; row < squareCount; row++) {
+			copy.board[row] = board[row].clone();
+		}
+		copy.hash = hash;
+		return copy;
+	}
+
+	/**
+	 * 指定したマスに配置して裏返し、裏返したマスを取り消し用の記録に積む。<br>
+	 * {@link #unmakeMove()}で配置前の盤面に戻せます。配置できるマスを指定してください。
+	 * @param column 列のindex値
+	 * @param row 行のindex値
+	 * @param piece 配置する駒
+	 * @return 裏返した駒の数
+	 */
+	int makeMove(int column, int row, Piece piece) {
+		UndoStack stack = undoStack();
+		stack.push(row * squareCount + column, piece);
+		Piece opponent = piece.opponent();
+		int flipped = 0;
+		for (int[] direction : DIRECTIONS) {
+			int cursorColumn = column + direction[0];
+			int cursorRow = row + direction[1];
+			int length = 0;
+			while (isInside(cursorColumn, cursorRow) && board[cursorRow][cursorColumn].is(opponent)) {
+				cursorColumn += direction[0];
+				cursorRow += direction[1];
+				length++;
+			}
+			// 相手の駒の先に自分の駒がなければ、この方向は裏返せない。
+			if (length == 0 || !isInside(cursorColumn, cursorRow) || !board[cursorRow][cursorColumn].is(piece)) {
+				continue;
+			}
+			for (int step = 1; step <= length; step++) {
+				int flipColumn = column + direction[0] * step;
+				int flipRow = row + direction[1] * step;
+				flip(flipColumn, flipRow, piece);
+				stack.addFlip(flipRow * squareCount + flipColumn);
+			}
+			flipped += length;
+		}
+		putPiece(column, row, piece);
+		return flipped;
+	}
+
+	/**
+	 * 直前の{@link #makeMove(int, int, Piece)}を取り消し、配置前の盤面に戻す（裏返した駒の数に比例した時間で戻る）。
+	 */
+	void unmakeMove() {
+		UndoStack stack = undoStackToPop();
+		Piece opponent = stack.piece().opponent();
+		for (int index = stack.flipStart(); index < stack.flipEnd(); index++) {
+			int square = stack.flip(index);
+			flip(square % squareCount, square / squareCount, opponent);
+		}
+		int move = stack.move();
+		putPiece(move % squareCount, move / squareCount, Piece.EMPTY);
+		stack.pop();
+	}
+
+	/**
+	 * 取り消せる着手の数
+	 */
+	int getUndoDepth() {
+		return undoStack == null ? 0 : undoStack.depth();
+	}
+
+	/**
+	 * 取り消し用の記録を取得する（無ければ作成する）。
+	 */
+	UndoStack undoStack() {
+		if (undoStack == null) {
+			undoStack = new UndoStack(squareCount * squareCount);
+		}
+		return undoStack;
+	}
+
+	/**
+	 * 取り消す着手がある場合に、取り消し用の記録を取得する。
+	 */
+	UndoStack undoStackToPop() {
+		if (getUndoDepth() == 0) {
+			throw new IllegalStateException("取り消す着手がありません。");
+		}
+		return undoStack;
+	}
+
+	/**
+	 * 取り消し用の記録を破棄する（盤面を丸ごと置き換えた場合など）。
+	 */
+	void clearUndo() {
+		if (undoStack != null) {
+			undoStack.clear();
+		}
+	}
+
+	private boolean isInside(int column, int row) {
+		return column >= 0 && row >= 0 && column < squareCount && row < squareCount;
+	}
+
 	/**
 	 * 終了判定
 	 * @return 盤面に空がない場合はtrue
@@ -574,6 +860,8 @@ public class Board {
 
 	void setBoard(Piece[][] board) {
 		this.board = board;
+		clearUndo();
+		resetHash();
 	}
 
 	int getSquareCount() {
@@ -584,4 +872,118 @@ public class Board {
 		this.squareCount = squareCount;
 	}
 
+
+	/**
+	 * マスの変更の通知先。<br>
+	 * 盤面の変更に合わせて差分だけを更新する集計（パターンの添字など）に使います。
+	 * 通知は盤面を変更したスレッドから呼び出されます。
+	 */
+	interface CellListener {
+
+		/**
+		 * マスの駒が置き換わった。
+		 * @param square マス位置（行番号 × マス数 + 列番号）
+		 * @param before 変更前の駒
+		 * @param after 変更後の駒
+		 */
+		void cellChanged(int square, Piece before, Piece after);
+
+		/**
+		 * 盤面全体が置き換わった（通知先を設定した時にも呼び出される）。
+		 * @param board 盤面オブジェクト
+		 */
+		void boardReset(Board board);
+	}
+
+	/**
+	 * 着手の取り消し用の記録。<br>
+	 * 1手ごとに配置したマスと駒、裏返したマスを積みます。配列は使い回し、容量が不足した場合だけ拡張します。
+	 * マスの表し方（「行番号 × マス数 + 列番号」や番兵付きの位置など）は使う側で決めます。
+	 */
+	static final class UndoStack {
+
+		// 手ごとの配置したマス・駒・裏返したマスの開始位置
+		private int[] moves;
+		private Piece[] pieces;
+		private int[] flipStarts;
+		private int depth;
+		// 裏返したマス（全手分を連結）
+		private int[] flips;
+		private int flipCount;
+
+		/**
+		 * @param capacity 想定する手数（空きマス数を超えて積まれることはない）
+		 */
+		UndoStack(int capacity) {
+			moves = new int[capacity];
+			pieces = new Piece[capacity];
+			flipStarts = new int[capacity];
+			flips = new int[capacity * 2];
+		}
+
+		void push(int move, Piece piece) {
+			if (depth == moves.length) {
+				moves = Arrays.copyOf(moves, depth * 2);
+				pieces = Arrays.copyOf(pieces, depth * 2);
+				flipStarts = Arrays.copyOf(flipStarts, depth * 2);
+			}
+			moves[depth] = move;
+			pieces[depth] = piece;
+			flipStarts[depth] = flipCount;
+			depth++;
+		}
+
+		void addFlip(int square) {
+			if (flipCount == flips.length) {
+				flips = Arrays.copyOf(flips, flipCount * 2);
+			}
+			flips[flipCount++] = square;
+		}
+
+		/**
+		 * 最後に積んだ手の配置したマス
+		 */
+		int move() {
+			return moves[depth - 1];
+		}
+
+		/**
+		 * 最後に積んだ手の駒
+		 */
+		Piece piece() {
+			return pieces[depth - 1];
+		}
+
+		/**
+		 * 最後に積んだ手の裏返したマスの範囲（{@link #flip(int)}に渡す添字の開始位置）
+		 */
+		int flipStart() {
+			return flipStarts[depth - 1];
+		}
+
+		int flipEnd() {
+			return flipCount;
+		}
+
+		int flip(int index) {
+			return flips[index];
+		}
+
+		void pop() {
+			depth--;
+			flipCount = flipStarts[depth];
+			pieces[depth] = null;
+		}
+
+		int depth() {
+			return depth;
+		}
+
+		void clear() {
+			Arrays.fill(pieces, 0, depth, null);
+			depth = 0;
+			flipCount = 0;
+		}
+	}
+
 }
@@ -0,0 +1,280 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 盤面の基本操作の速度を計測する計測用プログラム。<br>
+ * マス数と局面の段階（序盤・中盤・終盤）ごとに、固定のシードで作成した同じ局面群に対して
+ * isSelectable・canTurnOver・turnOver・needsSkip・isFull と、ランダムな1局の対局にかかる時間を計測します。<br>
+ * 各計測は暖機の後に複数回繰り返し、1操作あたりの時間（ナノ秒）の平均と標準偏差、
+ * マス数による伸び方が分かるよう1マスあたりの時間を出力します。<br>
+ * 引数：マス数(カンマ区切り) 実装 1回の計測時間(ms) シード
+ * （省略時は 4,6,8,10,12,16,20,30,40,50 create 100 1、実装は create・array・both）<br>
+ * 実装の create は {@link Board#create(int)} が選ぶ実装、array は2次元配列の {@link Board} です。
+ */
+public class BoardBenchmark {
+
+	// 既定の計測対象のマス数
+	private static final String DEFAULT_SIZES = "4,6,8,10,12,16,20,30,40,50";
+	// 局面の段階の名前と、配置済みのマスの割合
+	private static final String[] PHASE_NAMES = { "序盤", "中盤", "終盤" };
+	private static final double[] PHASE_FILLS = { 0.2, 0.5, 0.85 };
+	// 段階ごとに用意する局面数
+	private static final int POSITION_COUNT = 16;
+	// 暖機と計測の回数
+	private static final int WARMUP_ITERATIONS = 2;
+	private static final int MEASURE_ITERATIONS = 5;
+
+	// 計測結果を捨てずに使ったことにするための変数（JITによる処理の除去を防ぐ）
+	static volatile long sink;
+
+	/**
+	 * 計測対象の操作。
+	 */
+	@FunctionalInterface
+	private interface Operation {
+		/**
+		 * 全局面に対して操作を1巡行う。
+		 * @return 行った操作の回数
+		 */
+		long run(Fixture fixture);
+	}
+
+	private static final String[] OPERATION_NAMES = { "isSelectable", "canTurnOver", "copy", "copy+turnOver",
+			"needsSkip", "isFull" };
+	private static final Operation[] OPERATIONS = {
+			BoardBenchmark::isSelectable, BoardBenchmark::canTurnOver, BoardBenchmark::copy,
+			BoardBenchmark::turnOver, BoardBenchmark::needsSkip, BoardBenchmark::isFull };
+
+	public static void main(String[] args) {
+		int[] sizes = Arrays.stream((args.length > 0 ? args[0] : DEFAULT_SIZES).split(","))
+				.mapToInt(Integer::parseInt).toArray();
+		String implementation = args.length > 1 ? args[1] : "create";
+		long iterationMillis = args.length > 2 ? Long.parseLong(args[2]) : 100;
+		long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+		String[] implementations = implementation.equals("both") ? new String[] { "create", "array" }
+				: new String[] { implementation };
+		print("実装\tマス数\t段階\t操作\tns/操作\t標準偏差\tns/マス");
+		for (String target : implementations) {
+			for (int squareCount : sizes) {
+				for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+					Fixture fixture = new Fixture(target, squareCount, PHASE_FILLS[phase], seed);
+					for (int index = 0; index < OPERATIONS.length; index++) {
+						printResult(target, squareCount, PHASE_NAMES[phase], OPERATION_NAMES[index],
+								measure(OPERATIONS[index], fixture, iterationMillis));
+					}
+				}
+				Fixture fixture = new Fixture(target, squareCount, 0, seed);
+				printResult(target, squareCount, "全体", "randomGame",
+						measure(BoardBenchmark::randomGame, fixture, iterationMillis));
+			}
+		}
+	}
+
+	private static void printResult(String implementation, int squareCount, String phase, String operation,
+			double[] result) {
+		print(String.format("%s\t%d\t%s\t%s\t%.1f\t%.1f\t%.3f", implementation, squareCount, phase, operation,
+				result[0], result[1], result[0] / (squareCount * squareCount)));
+	}
+
+	/**
+	 * 操作を計測時間いっぱいまで繰り返し、1操作あたりの時間を求める。
+	 * @return [0] 1操作あたりの時間の平均（ナノ秒）、[1] 計測回ごとの標準偏差
+	 */
+	private static double[] measure(Operation operation, Fixture fixture, long iterationMillis) {
+		double[] samples = new double[MEASURE_ITERATIONS];
+		for (int iteration = -WARMUP_ITERATIONS; iteration < MEASURE_ITERATIONS; iteration++) {
+			long count = 0;
+			long start = System.nanoTime();
+			long end = start + iterationMillis * 1_000_000L;
+			long now;
+			do {
+				count += operation.run(fixture);
+				now = System.nanoTime();
+			} while (now < end);
+			if (iteration >= 0) {
+				samples[iteration] = (double) (now - start) / count;
+			}
+		}
+		double mean = 0;
+		for (double sample : samples) {
+			mean += sample / samples.length;
+		}
+		double variance = 0;
+		for (double sample : samples) {
+			variance += (sample - mean) * (sample - mean) / samples.length;
+		}
+		return new double[] { mean, Math.sqrt(variance) };
+	}
+
+	private static long isSelectable(Fixture fixture) {
+		long count = 0;
+		long result = 0;
+		for (int index = 0; index < fixture.boards.length; index++) {
+			Board board = fixture.boards[index];
+			Piece piece = fixture.sides[index];
+			for (int square : fixture.empties[index]) {
+				if (board.isSelectable(square % fixture.squareCount, square / fixture.squareCount, piece)) {
+					result++;
+				}
+				count++;
+			}
+		}
+		sink += result;
+		return count;
+	}
+
+	private static long canTurnOver(Fixture fixture) {
+		long count = 0;
+		long result = 0;
+		for (int index = 0; index < fixture.boards.length; index++) {
+			Board board = fixture.boards[index];
+			Piece opponent = fixture.sides[index].opponent();
+			for (int square : fixture.empties[index]) {
+				if (board.canTurnOver(square % fixture.squareCount, square / fixture.squareCount, opponent)) {
+					result++;
+				}
+				count++;
+			}
+		}
+		sink += result;
+		return count;
+	}
+
+	private static long copy(Fixture fixture) {
+		long result = 0;
+		for (Board board : fixture.boards) {
+			result += board.copy().getHash();
+		}
+		sink += result;
+		return fixture.boards.length;
+	}
+
+	/**
+	 * 盤面を複製した上で着手する（複製の時間を含むため、copy の結果と比べて使う）。
+	 */
+	private static long turnOver(Fixture fixture) {
+		long result = 0;
+		for (int index = 0; index < fixture.boards.length; index++) {
+			Board board = fixture.boards[index].copy();
+			int move = fixture.moves[index];
+			int column = move % fixture.squareCount;
+			int row = move / fixture.squareCount;
+			board.putPiece(column, row, fixture.sides[index]);
+			board.turnOver(column, row, fixture.sides[index]);
+			result += board.getHash();
+		}
+		sink += result;
+		return fixture.boards.length;
+	}
+
+	private static long needsSkip(Fixture fixture) {
+		long result = 0;
+		for (int index = 0; index < fixture.boards.length; index++) {
+			if (fixture.boards[index].needsSkip(fixture.players[index])) {
+				result++;
+			}
+		}
+		sink += result;
+		return fixture.boards.length;
+	}
+
+	private static long isFull(Fixture fixture) {
+		long result = 0;
+		for (Board board : fixture.boards) {
+			if (board.isFull()) {
+				result++;
+			}
+		}
+		sink += result;
+		return fixture.boards.length;
+	}
+
+	/**
+	 * 初期配置からランダムに1局を最後まで打つ（乱数は対局ごとに固定のシードから作り直す）。
+	 */
+	private static long randomGame(Fixture fixture) {
+		Board board = fixture.newBoard();
+		board.init();
+		fixture.random.setSeed(fixture.seed + fixture.games++);
+		Piece piece = Piece.BLACK;
+		while (true) {
+			if (board.legalMoveCount(piece) == 0) {
+				piece = piece.opponent();
+				if (board.legalMoveCount(piece) == 0) {
+					break;
+				}
+			}
+			int move = fixture.strategy.selectMove(board, piece);
+			board.putPiece(move % fixture.squareCount, move / fixture.squareCount, piece);
+			board.turnOver(move % fixture.squareCount, move / fixture.squareCount, piece);
+			piece = piece.opponent();
+		}
+		sink += board.count(Piece.BLACK);
+		return 1;
+	}
+
+	/**
+	 * 計測に使う局面群。
+	 */
+	private static final class Fixture {
+
+		private final String implementation;
+		private final int squareCount;
+		private final long seed;
+		private final Board[] boards = new Board[POSITION_COUNT];
+		private final Piece[] sides = new Piece[POSITION_COUNT];
+		private final Player[] players = new Player[POSITION_COUNT];
+		// 局面ごとの空きマス
+		private final int[][] empties = new int[POSITION_COUNT][];
+		// 局面ごとの着手可能なマスの1つ（着手可能なマスが無い場合は空きマスの1つ）
+		private final int[] moves = new int[POSITION_COUNT];
+		// 対局用の乱数と思考ルーチン
+		private final Random random = new Random();
+		private final Strategy strategy = new RandomStrategy(random);
+		private long games;
+
+		/**
+		 * @param implementation create または array
+		 * @param squareCount 縦と横のマス数
+		 * @param fill 配置済みのマスの割合
+		 * @param seed 乱数のシード
+		 */
+		Fixture(String implementation, int squareCount, double fill, long seed) {
+			if (!implementation.equals("create") && !implementation.equals("array")) {
+				throw new IllegalArgumentException("実装は create・array・both のいずれかを指定してください。");
+			}
+			this.implementation = implementation;
+			this.squareCount = squareCount;
+			this.seed = seed;
+			Random positionRandom = new Random(seed * 31 + squareCount);
+			int plies = (int) (squareCount * squareCount * fill) - 4;
+			int[] buffer = new int[squareCount * squareCount];
+			for (int index = 0; index < POSITION_COUNT; index++) {
+				Board board = newBoard();
+				Piece side = SearchBenchmark.playRandomly(board, positionRandom, Math.max(0, plies));
+				boards[index] = board;
+				sides[index] = side;
+				players[index] = new Player("計測", side, true);
+				int emptyCount = 0;
+				for (int square = 0; square < squareCount * squareCount; square++) {
+					if (board.squareIsEmpty(square % squareCount, square / squareCount)) {
+						buffer[emptyCount++] = square;
+					}
+				}
+				empties[index] = Arrays.copyOf(buffer, emptyCount);
+				int legalCount = board.legalMoves(side, buffer);
+				moves[index] = legalCount > 0 ? buffer[positionRandom.nextInt(legalCount)] : empties[index][0];
+			}
+		}
+
+		Board newBoard() {
+			return implementation.equals("create") ? Board.create(squareCount) : new Board(squareCount);
+		}
+	}
+
+}
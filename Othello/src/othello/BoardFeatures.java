@@ -0,0 +1,215 @@
+package othello;
+
+/**
+ * 8×8の局面の特徴量（着手可能数・潜在的な着手可能数・フロンティアの駒・確定石）をビット演算で求める。<br>
+ * 局面は {@link BitBoard} と同じ「手番側の駒の配置」と「相手の駒の配置」の2つのlong値で受け取るため、
+ * 盤面オブジェクトを作らずに評価関数や分析用のプログラムから使えます。<br>
+ * 確定石は、辺の並び（自分と相手の駒の8ビットずつ）ごとに辺の中で裏返り得ない駒を事前に求めた表で辺と隅を求め、
+ * 縦・横・斜めの4方向が全て埋まっているか確定石に挟まれている内側の駒を、増えなくなるまで加えて求めます
+ * （実際には裏返らない駒を確定石に数えないことはありますが、裏返る駒を確定石に数えることはありません）。
+ */
+final public class BoardFeatures {
+
+	// 盤面の辺と内側のマス
+	private static final long TOP_EDGE = 0x00000000000000ffL;
+	private static final long LEFT_EDGE = 0x0101010101010101L;
+	private static final long INNER = 0x007e7e7e7e7e7e00L;
+
+	// [自分の駒の8ビット × 256 + 相手の駒の8ビット] → 辺の中で裏返り得ない自分の駒の8ビット
+	private static final byte[] EDGE_STABILITY = new byte[256 * 256];
+	// 列の8ビット（行番号の順）→ 左端と右端の列のビット集合
+	private static final long[] LEFT_COLUMN = new long[256];
+	private static final long[] RIGHT_COLUMN = new long[256];
+
+	static {
+		for (int own = 0; own < 256; own++) {
+			for (int opponent = 0; opponent < 256; opponent++) {
+				if ((own & opponent) == 0) {
+					EDGE_STABILITY[own * 256 + opponent] = (byte) findEdgeStable(own, opponent, own);
+				}
+			}
+		}
+		for (int bits = 0; bits < 256; bits++) {
+			for (int row = 0; row < BitBoard.SIZE; row++) {
+				if ((bits & (1 << row)) != 0) {
+					LEFT_COLUMN[bits] |= 1L << (row * BitBoard.SIZE);
+					RIGHT_COLUMN[bits] |= 1L << (row * BitBoard.SIZE + BitBoard.SIZE - 1);
+				}
+			}
+		}
+	}
+
+	private BoardFeatures() {
+	}
+
+	/**
+	 * 着手可能なマスの数
+	 * @param own 手番側の駒の配置
+	 * @param opponent 相手の駒の配置
+	 */
+	static int mobility(long own, long opponent) {
+		return Long.bitCount(BitBoard.legalMoves(own, opponent));
+	}
+
+	/**
+	 * 潜在的な着手可能数（相手の駒に隣接する空きマスの数）
+	 * @param own 手番側の駒の配置
+	 * @param opponent 相手の駒の配置
+	 */
+	static int potentialMobility(long own, long opponent) {
+		return Long.bitCount(adjacent(opponent) & ~(own | opponent));
+	}
+
+	/**
+	 * フロンティアの駒（空きマスに隣接する手番側の駒）の数
+	 * @param own 手番側の駒の配置
+	 * @param opponent 相手の駒の配置
+	 */
+	static int frontier(long own, long opponent) {
+		return Long.bitCount(own & adjacent(~(own | opponent)));
+	}
+
+	/**
+	 * 手番側の確定石の数
+	 * @param own 手番側の駒の配置
+	 * @param opponent 相手の駒の配置
+	 */
+	static int stability(long own, long opponent) {
+		return Long.bitCount(stableDiscs(own, opponent));
+	}
+
+	/**
+	 * 手番側の確定石を求める。
+	 * @param own 手番側の駒の配置
+	 * @param opponent 相手の駒の配置
+	 * @return 確定石のビット集合
+	 */
+	static long stableDiscs(long own, long opponent) {
+		long stable = edgeStableDiscs(own, opponent);
+		long filled = own | opponent;
+		long fullHorizontal = fullLines(filled, 0, 1);
+		long fullVertical = fullLines(filled, 2, 3);
+		long fullDiagonal = fullLines(filled, 4, 7);
+		long fullAntiDiagonal = fullLines(filled, 5, 6);
+		long inner = own & INNER;
+		stable |= fullHorizontal & fullVertical & fullDiagonal & fullAntiDiagonal & inner;
+		// 4方向とも、埋まった線上にあるか確定石と隣り合う駒を、増えなくなるまで加える。
+		while (true) {
+			long horizontal = (stable >>> 1) | (stable << 1) | fullHorizontal;
+			long vertical = (stable >>> 8) | (stable << 8) | fullVertical;
+			long diagonal = (stable >>> 9) | (stable << 9) | fullDiagonal;
+			long antiDiagonal = (stable >>> 7) | (stable << 7) | fullAntiDiagonal;
+			// 内側のマスだけを対象にするため、行をまたいだシフトの影響は受けない。
+			long added = horizontal & vertical & diagonal & antiDiagonal & inner & ~stable;
+			if (added == 0) {
+				return stable;
+			}
+			stable |= added;
+		}
+	}
+
+	/**
+	 * 4辺それぞれの並びから、辺と隅の確定石を表で求める。
+	 */
+	static long edgeStableDiscs(long own, long opponent) {
+		long stable = edgeStable(own, opponent, 0);
+		stable |= edgeStable(own, opponent, 56) << 56;
+		stable |= LEFT_COLUMN[edgeStableOf(column(own, 0), column(opponent, 0))];
+		stable |= RIGHT_COLUMN[edgeStableOf(column(own, 7), column(opponent, 7))];
+		return stable;
+	}
+
+	private static long edgeStable(long own, long opponent, int shift) {
+		return edgeStableOf((int) (own >>> shift & TOP_EDGE), (int) (opponent >>> shift & TOP_EDGE));
+	}
+
+	private static int edgeStableOf(int own, int opponent) {
+		return EDGE_STABILITY[own << 8 | opponent] & 0xff;
+	}
+
+	/**
+	 * 指定した列の駒を、行番号の順に8ビットに詰める。
+	 */
+	private static int column(long bits, int column) {
+		return (int) (((bits >>> column) & LEFT_EDGE) * 0x0102040810204080L >>> 56);
+	}
+
+	/**
+	 * 指定した方向とその逆方向の線が全て埋まっているマスを求める。
+	 * @param filled 駒のあるマス
+	 * @param forward {@link BitBoard#shift} の方向
+	 * @param backward forward の逆方向
+	 */
+	private static long fullLines(long filled, int forward, int backward) {
+		// 空きマスを両方向に最大7マス伸ばし、届かなかったマスを埋まった線上のマスとする。
+		long reached = ~filled;
+		for (int step = 0; step < BitBoard.SIZE - 1; step++) {
+			reached |= BitBoard.shift(reached, forward) | BitBoard.shift(reached, backward);
+		}
+		return ~reached;
+	}
+
+	/**
+	 * 指定したマスに8方向で隣接するマスを求める。
+	 */
+	private static long adjacent(long bits) {
+		long horizontal = BitBoard.shift(bits, 0) | BitBoard.shift(bits, 1);
+		long row = bits | horizontal;
+		return horizontal | (row << 8) | (row >>> 8);
+	}
+
+	/**
+	 * 辺の並びで、空きマスへの着手をどのような順で続けても裏返らない自分の駒を求める（表の作成用）。<br>
+	 * 辺以外の駒は分からないため、辺の空きマスにはどちらの手番でも置けるものとします。
+	 * @param own 自分の駒の8ビット
+	 * @param opponent 相手の駒の8ビット
+	 * @param stable 確定石の候補
+	 * @return 確定石の8ビット
+	 */
+	private static int findEdgeStable(int own, int opponent, int stable) {
+		int empty = ~(own | opponent) & 0xff;
+		stable &= own;
+		if (stable == 0 || empty == 0) {
+			return stable;
+		}
+		for (int square = 0; square < BitBoard.SIZE; square++) {
+			int bit = 1 << square;
+			if ((empty & bit) == 0) {
+				continue;
+			}
+			// 自分が置いた場合
+			int flipped = edgeFlips(own, opponent, square);
+			stable = findEdgeStable(own | bit | flipped, opponent & ~flipped, stable);
+			if (stable == 0) {
+				return 0;
+			}
+			// 相手が置いた場合
+			flipped = edgeFlips(opponent, own, square);
+			stable = findEdgeStable(own & ~flipped, opponent | bit | flipped, stable);
+			if (stable == 0) {
+				return 0;
+			}
+		}
+		return stable;
+	}
+
+	/**
+	 * 辺の並びで、指定したマスに置いた場合に裏返る駒を求める（表の作成用）。
+	 */
+	private static int edgeFlips(int own, int opponent, int square) {
+		int flipped = 0;
+		for (int step = -1; step <= 1; step += 2) {
+			int line = 0;
+			int cursor = square + step;
+			while (cursor >= 0 && cursor < BitBoard.SIZE && (opponent & (1 << cursor)) != 0) {
+				line |= 1 << cursor;
+				cursor += step;
+			}
+			if (cursor >= 0 && cursor < BitBoard.SIZE && (own & (1 << cursor)) != 0) {
+				flipped |= line;
+			}
+		}
+		return flipped;
+	}
+
+}
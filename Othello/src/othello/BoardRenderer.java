@@ -0,0 +1,237 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.io.PrintStream;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 盤面をコンソールに描画する。<br>
+ * 1画面分の文字列は使い回すバッファに組み立てて1回で出力し、枠線・列番号の行・行番号はマス数ごとに作成したものを使い回します。<br>
+ * ANSIモードでは、初回に画面を消去して盤面を画面の上端に描画し、盤面より下だけをスクロール範囲にします。
+ * 以降は前回描画した内容と比べ、変化したマスを含む行だけをカーソル移動で書き直します
+ * （全角文字や丸数字の表示幅は端末によって異なるため、マス単位ではなく行単位で位置を合わせます）。
+ * 盤面の行数より高さの低い端末では正しく表示されません。<br>
+ * 描画間隔を指定すると、指定回数ごとに1回だけ描画します（{@link #render(Board, boolean)}で強制した場合を除く）。
+ */
+public class BoardRenderer {
+
+	// 罫線
+	private static final String VERTICAL_LINE = "｜";
+	// 改行（System.out.println と同じもの）
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+	// ANSIエスケープシーケンス
+	private static final String ESC = "\033[";
+	private static final String CLEAR_SCREEN = ESC + "2J" + ESC + "H";
+	private static final String SAVE_CURSOR = "\0337";
+	private static final String RESTORE_CURSOR = "\0338";
+	private static final String RESET_SCROLL_REGION = ESC + "r";
+	// 盤面の行より上にある行数（枠線と列番号の行）
+	private static final int HEADER_LINES = 2;
+
+	// マス数 → 枠線・列番号の行・行の先頭部分（一度作成したものは変更しない）
+	private static final ConcurrentHashMap<Integer, Frame> FRAMES = new ConcurrentHashMap<>();
+
+	// 出力先
+	private final PrintStream out;
+	// ANSIモードの有効/無効
+	private final boolean ansi;
+	// 描画間隔
+	private final int interval;
+	// 1画面分の文字列の組み立て先
+	private final StringBuilder buffer = new StringBuilder();
+
+	// 描画要求の回数
+	private long requests;
+	// 直前の描画要求を描画間隔で省略した場合はtrue
+	private boolean skipped;
+	// 前回描画した盤面（ANSIモードのみ使用、未描画の場合はnull）
+	private Piece[] previous;
+	private int previousSquareCount;
+
+	/**
+	 * 毎回すべての行を出力する描画
+	 */
+	BoardRenderer() {
+		this(System.out, false, 1);
+	}
+
+	/**
+	 * @param out 出力先
+	 * @param ansi 変化した行だけを書き直す場合はtrue
+	 * @param interval 描画間隔（1なら毎回描画する）
+	 */
+	BoardRenderer(PrintStream out, boolean ansi, int interval) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("描画間隔は1以上を指定してください：" + interval);
+		}
+		this.out = out;
+		this.ansi = ansi;
+		this.interval = interval;
+	}
+
+	/**
+	 * システムプロパティに従って描画を作成する。<br>
+	 * othello.render.ansi（true で変化した行だけを書き直す、省略時は false）と
+	 * othello.render.every（描画間隔、省略時は 1）を参照します。
+	 */
+	static BoardRenderer fromProperties() {
+		return new BoardRenderer(System.out, Boolean.getBoolean("othello.render.ansi"),
+				Integer.getInteger("othello.render.every", 1));
+	}
+
+	/**
+	 * 描画間隔に従って盤面を描画する。
+	 */
+	void render(Board board) {
+		render(board, false);
+	}
+
+	/**
+	 * 盤面を描画する。
+	 * @param force 描画間隔に関わらず描画する場合はtrue（対局の最初と最後など）
+	 */
+	void render(Board board, boolean force) {
+		if (!force && requests++ % interval != 0) {
+			skipped = true;
+			return;
+		}
+		skipped = false;
+		int squareCount = board.getSquareCount();
+		Frame frame = frame(squareCount);
+		buffer.setLength(0);
+		if (!ansi) {
+			appendAll(board, frame);
+		} else if (previous == null || previousSquareCount != squareCount) {
+			buffer.append(CLEAR_SCREEN);
+			appendAll(board, frame);
+			// 盤面より下をスクロール範囲にして、メッセージで盤面が流れないようにする。
+			int firstFreeLine = HEADER_LINES + squareCount + 2;
+			buffer.append(ESC).append(firstFreeLine).append('r');
+			buffer.append(ESC).append(firstFreeLine).append(";1H");
+			previous = new Piece[squareCount * squareCount];
+			previousSquareCount = squareCount;
+			remember(board);
+		} else {
+			appendChangedRows(board, frame);
+		}
+		if (buffer.length() > 0) {
+			out.append(buffer);
+			out.flush();
+		}
+	}
+
+	/**
+	 * 直前の描画要求を描画間隔で省略していた場合に、その盤面を描画する（対局の最後の盤面を必ず表示するため）。
+	 */
+	void flush(Board board) {
+		if (skipped) {
+			render(board, true);
+		}
+	}
+
+	/**
+	 * 描画を終了する（ANSIモードの場合はスクロール範囲を元に戻す）。
+	 */
+	void close() {
+		if (ansi && previous != null) {
+			out.print(RESET_SCROLL_REGION);
+			out.flush();
+			previous = null;
+		}
+	}
+
+	/**
+	 * 盤面全体を組み立てる。
+	 */
+	private void appendAll(Board board, Frame frame) {
+		buffer.append(frame.border).append(LINE_SEPARATOR);
+		buffer.append(frame.header).append(LINE_SEPARATOR);
+		for (int row = 0; row < frame.rowPrefixes.length; row++) {
+			appendRow(board, frame, row);
+			buffer.append(LINE_SEPARATOR);
+		}
+		buffer.append(frame.border).append(LINE_SEPARATOR);
+	}
+
+	/**
+	 * 前回の描画から変化したマスを含む行だけを、カーソル位置を移動して組み立てる。
+	 */
+	private void appendChangedRows(Board board, Frame frame) {
+		int squareCount = frame.rowPrefixes.length;
+		boolean changed = false;
+		for (int row = 0; row < squareCount; row++) {
+			boolean rowChanged = false;
+			for (int column = 0; column < squareCount; column++) {
+				Piece piece = board.getPiece(column, row);
+				if (previous[row * squareCount + column] != piece) {
+					previous[row * squareCount + column] = piece;
+					rowChanged = true;
+				}
+			}
+			if (!rowChanged) {
+				continue;
+			}
+			if (!changed) {
+				buffer.append(SAVE_CURSOR);
+				changed = true;
+			}
+			buffer.append(ESC).append(HEADER_LINES + row + 1).append(";1H");
+			appendRow(board, frame, row);
+		}
+		if (changed) {
+			buffer.append(RESTORE_CURSOR);
+		}
+	}
+
+	private void appendRow(Board board, Frame frame, int row) {
+		buffer.append(frame.rowPrefixes[row]);
+		for (int column = 0; column < frame.rowPrefixes.length; column++) {
+			buffer.append(board.getPiece(column, row).getDisp()).append(VERTICAL_LINE);
+		}
+	}
+
+	private void remember(Board board) {
+		int squareCount = previousSquareCount;
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				previous[row * squareCount + column] = board.getPiece(column, row);
+			}
+		}
+	}
+
+	private static Frame frame(int squareCount) {
+		return FRAMES.computeIfAbsent(squareCount, Frame::new);
+	}
+
+	/**
+	 * マス数ごとに変わらない部分。
+	 */
+	private static final class Frame {
+
+		private final String border;
+		private final String header;
+		// 行ごとの「｜行番号｜」
+		private final String[] rowPrefixes;
+
+		Frame(int squareCount) {
+			// 位置調整の兼ね合いでハイフンを2つ入れておく。
+			StringBuilder builder = new StringBuilder("  --");
+			for (int i = 0; i < squareCount; i++) {
+				builder.append("-----");
+			}
+			border = builder.append("---").toString();
+
+			builder.setLength(0);
+			builder.append(VERTICAL_LINE).append("　").append(VERTICAL_LINE);
+			rowPrefixes = new String[squareCount];
+			for (int i = 0; i < squareCount; i++) {
+				String number = convertCircleNumber(i);
+				builder.append(number).append(VERTICAL_LINE);
+				rowPrefixes[i] = VERTICAL_LINE + number + VERTICAL_LINE;
+			}
+			header = builder.toString();
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package othello;
+
+/**
+ * 定石集に登録されている局面では定石の手を選び、それ以外は別の思考ルーチンに任せる思考ルーチン。
+ */
+public class BookStrategy implements Strategy {
+
+	// 定石集
+	private final OpeningBook book;
+	// 定石にない局面で使う思考ルーチン
+	private final Strategy fallback;
+
+	BookStrategy(OpeningBook book, Strategy fallback) {
+		this.book = book;
+		this.fallback = fallback;
+	}
+
+	@Override
+	public int selectMove(Board board, Piece piece) {
+		int move = book.lookup(board, piece);
+		if (move >= 0) {
+			int squareCount = board.getSquareCount();
+			int column = move % squareCount;
+			int row = move / squareCount;
+			// ハッシュ値の衝突に備えて、置けるマスかを確かめる。
+			if (move < squareCount * squareCount && board.squareIsEmpty(column, row)
+					&& board.isSelectable(column, row, piece)) {
+				return move;
+			}
+		}
+		return fallback.selectMove(board, piece);
+	}
+
+}
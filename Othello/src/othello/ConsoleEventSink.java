@@ -0,0 +1,56 @@
+package othello;
+
+/**
+ * 出来事をコンソールに出力する購読者。<br>
+ * {@link ConsoleOutput} と同じ内容を、{@link GameEventBus} の配信用のスレッドから出力します。
+ */
+public class ConsoleEventSink implements GameEventBus.Subscriber {
+
+	// 自動進行モードの有効/無効（有効な場合は警告を出力しない）
+	private final boolean autoMode;
+	// 盤面の描画
+	private final BoardRenderer renderer;
+
+	/**
+	 * @param autoMode 自動進行モードの有効/無効
+	 * @param renderer 盤面の描画（このスレッド以外から使わないこと）
+	 */
+	ConsoleEventSink(boolean autoMode, BoardRenderer renderer) {
+		this.autoMode = autoMode;
+		this.renderer = renderer;
+	}
+
+	@Override
+	public void onEvent(GameEvent event) {
+		switch (event.getType()) {
+		case PRINT:
+			Utils.print(event.getMessage());
+			break;
+		case INFO:
+			ConsolePrinter.printInfo(event.getMessage());
+			break;
+		case ALERT:
+			if (!autoMode) {
+				ConsolePrinter.printAlert(event.getMessage());
+			}
+			break;
+		case BOARD:
+			renderer.render(event.getBoard());
+			break;
+		case GAME_OVER:
+			// 描画間隔で省略された場合も、最後の盤面は表示する。
+			if (event.getBoard() != null) {
+				renderer.flush(event.getBoard());
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public void close() {
+		renderer.close();
+	}
+
+}
@@ -0,0 +1,52 @@
+package othello;
+
+/**
+ * コンソールへの出力先。<br>
+ * 自動進行モードの場合は警告を出力しません。盤面は {@link BoardRenderer} で描画します。
+ */
+public class ConsoleOutput implements GameOutput {
+
+	// 自動進行モードの有効/無効
+	private final boolean autoMode;
+	// 盤面の描画
+	private final BoardRenderer renderer;
+
+	/**
+	 * @param autoMode 自動進行モードの有効/無効
+	 */
+	ConsoleOutput(boolean autoMode) {
+		this(autoMode, new BoardRenderer());
+	}
+
+	/**
+	 * @param autoMode 自動進行モードの有効/無効
+	 * @param renderer 盤面の描画
+	 */
+	ConsoleOutput(boolean autoMode, BoardRenderer renderer) {
+		this.autoMode = autoMode;
+		this.renderer = renderer;
+	}
+
+	@Override
+	public void print(String msg) {
+		Utils.print(msg);
+	}
+
+	@Override
+	public void printInfo(String msg) {
+		ConsolePrinter.printInfo(msg);
+	}
+
+	@Override
+	public void printAlert(String msg) {
+		if (!autoMode) {
+			ConsolePrinter.printAlert(msg);
+		}
+	}
+
+	@Override
+	public void printBoard(Board board) {
+		renderer.render(board);
+	}
+
+}
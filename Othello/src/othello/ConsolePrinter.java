@@ -8,9 +8,6 @@ import java.io.IOException;
 
 final public class ConsolePrinter {
 
-	// フラグでログの出力有無を判断
-	static boolean autoMode = false;
-
 	private ConsolePrinter() {
 	};
 
@@ -32,23 +29,19 @@ final public class ConsolePrinter {
 	}
 
 	/**
-	 * 自動進行モードでない時に、接頭辞に「【警告】」を付けた上で、引数の文字列を出力する。
+	 * 接頭辞に「【警告】」を付けた上で、引数の文字列を出力する。
 	 * @param msg
 	 */
 	static void printAlert(String msg) {
-		if (!autoMode) {
-			changeTextColorToRed(() -> print("【警告】" + msg));
-		}
+		changeTextColorToRed(() -> print("【警告】" + msg));
 	}
 
 	/**
-	 * 自動進行モードでない時に、接頭辞に「【要求】」を付けた上で、引数の文字列を出力する。
+	 * 接頭辞に「【要求】」を付けた上で、引数の文字列を出力する。
 	 * @param msg
 	 */
 	static void printGuidance(String msg) {
-		if (!autoMode) {
-			changeTextColorToBlue(() -> print("【要求】" + msg));
-		}
+		changeTextColorToBlue(() -> print("【要求】" + msg));
 	}
 
 	/**
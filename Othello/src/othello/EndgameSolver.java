@@ -0,0 +1,536 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 終盤の完全読み。<br>
+ * 空きマスが少なくなった局面から、双方が最善を尽くした場合の最終的な駒数の差を求めます。<br>
+ * 8×8の盤面はビット演算で読み、次の工夫で探索量を抑えます。
+ * <ul>
+ * <li>空きマスが多いうちは、相手の着手可能数が少なくなる手から読む（速さ優先）</li>
+ * <li>空きマスが少なくなったら、空きマスが奇数個残っている領域（4×4の区画）から読む（偶数理論）</li>
+ * <li>残り1～3マスは専用の処理で読む</li>
+ * <li>空きマスが多い局面は、評価値の上限・下限と最善手を置換表に残して再利用する</li>
+ * <li>2手目以降は幅0の窓で読み、最初の手より良い場合だけ読み直す</li>
+ * </ul>
+ * それ以外のマス数の盤面は{@link Board}の操作で読みます。
+ */
+public class EndgameSolver {
+
+	// 速さ優先で並べ替える空きマス数の下限（これ以下は偶数理論の順で読む）
+	private static final int FASTEST_FIRST_EMPTIES = 6;
+	// 8×8の4つの区画（4×4）
+	private static final long[] QUADRANTS = {
+			0x000000000f0f0f0fL, 0x00000000f0f0f0f0L,
+			0x0f0f0f0f00000000L, 0xf0f0f0f000000000L };
+	// 8×8の隅
+	private static final long CORNERS = 0x8100000000000081L;
+	// 置換表のエントリ数
+	private static final int TABLE_SIZE = 1 << 18;
+
+	// 読みを打ち切る時刻（System.nanoTime基準）
+	private long deadline = Long.MAX_VALUE;
+	// 時間切れで打ち切ったかどうか
+	private boolean aborted;
+	// 読んだ局面数
+	private long nodes;
+	// 空きマス数ごとの、速さ優先で並べ替えた子局面（自分/相手の駒の配置を交互に格納）と優先度
+	// （子局面1つにつき2要素を使うため、空きマス数の上限の64手分の2倍を確保する）
+	private final long[][] childBuffers = new long[65][2 * 64];
+	private final int[][] priorityBuffers = new int[65][64];
+	// 8×8以外の読みで使う、空きマス数ごとの着手可能なマスと優先度（必要になった空きマス数の分だけ作成する）
+	private int[][] genericMoves = new int[0][];
+	private int[][] genericPriorities = new int[0][];
+	// 残り3マスの読みで使う空きマスの位置
+	private final int[] lastSquares = new int[3];
+	// 置換表（局面の自分/相手の駒の配置と、下位から 下限+64:8bit、上限+64:8bit、最善手+1:8bit）
+	private final long[] tableOwn = new long[TABLE_SIZE];
+	private final long[] tableOpponent = new long[TABLE_SIZE];
+	private final int[] tableEntries = new int[TABLE_SIZE];
+	// 前回の消去以降に置換表に登録したかどうか
+	private boolean tableUsed;
+
+	/**
+	 * 双方が最善を尽くした場合の最終的な駒数の差を求める。
+	 * @param board 盤面オブジェクト
+	 * @param piece 手番の駒
+	 * @return 手番側から見た駒数の差（自分の駒数 - 相手の駒数）
+	 */
+	int solve(Board board, Piece piece) {
+		nodes = 0;
+		aborted = false;
+		deadline = Long.MAX_VALUE;
+		if (board instanceof BitBoard) {
+			BitBoard bitBoard = (BitBoard) board;
+			long own = piece.is(Piece.BLACK) ? bitBoard.getBlack() : bitBoard.getWhite();
+			long opponent = piece.is(Piece.BLACK) ? bitBoard.getWhite() : bitBoard.getBlack();
+			return solve(own, opponent, -BitBoard.SIZE * BitBoard.SIZE, BitBoard.SIZE * BitBoard.SIZE, false);
+		}
+		int squares = board.getSquareCount() * board.getSquareCount();
+		prepareGenericBuffers(board.count(Piece.EMPTY));
+		return solve(board, piece, -squares, squares, false);
+	}
+
+	/**
+	 * 最善手を求める。着手可能なマスが１つ以上ある状態で呼び出してください。
+	 * @param board 盤面オブジェクト
+	 * @param piece 手番の駒
+	 * @return 「行番号 × マス数 + 列番号」の値
+	 */
+	int bestMove(Board board, Piece piece) {
+		return bestMove(board, piece, Long.MAX_VALUE);
+	}
+
+	/**
+	 * 指定した時刻までに読み切れた場合に最善手を返す。
+	 * @param board 盤面オブジェクト
+	 * @param piece 手番の駒
+	 * @param deadline 読みを打ち切る時刻（System.nanoTime基準）
+	 * @return 「行番号 × マス数 + 列番号」の値（読み切れなかった場合は-1）
+	 */
+	int bestMove(Board board, Piece piece, long deadline) {
+		this.deadline = deadline;
+		aborted = false;
+		nodes = 0;
+		int squareCount = board.getSquareCount();
+		int squares = squareCount * squareCount;
+		int[] moves = new int[squares];
+		int count = board.legalMoves(piece, moves);
+		int bestMove = moves[0];
+		if (!(board instanceof BitBoard)) {
+			prepareGenericBuffers(board.count(Piece.EMPTY));
+		}
+		int alpha = -squares - 1;
+		for (int index = 0; index < count; index++) {
+			int move = moves[index];
+			board.makeMove(move % squareCount, move / squareCount, piece);
+			int score;
+			if (board instanceof BitBoard) {
+				BitBoard bitBoard = (BitBoard) board;
+				long own = piece.is(Piece.BLACK) ? bitBoard.getWhite() : bitBoard.getBlack();
+				long opponent = piece.is(Piece.BLACK) ? bitBoard.getBlack() : bitBoard.getWhite();
+				score = -solve(own, opponent, -squares, -alpha, false);
+			} else {
+				score = -solve(board, piece.opponent(), -squares, -alpha, false);
+			}
+			board.unmakeMove();
+			if (aborted) {
+				return -1;
+			}
+			if (score > alpha) {
+				alpha = score;
+				bestMove = moves[index];
+			}
+		}
+		return bestMove;
+	}
+
+	/**
+	 * 置換表の登録内容を消去する。
+	 */
+	void clearTable() {
+		if (tableUsed) {
+			Arrays.fill(tableEntries, 0);
+			tableUsed = false;
+		}
+	}
+
+	/**
+	 * 直前の読みで読んだ局面数
+	 */
+	long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * 8×8の完全読み
+	 * @param own 手番側の駒の配置
+	 * @param opponent 相手の駒の配置
+	 * @param alpha 下限
+	 * @param beta 上限
+	 * @param passed 直前の手番がパスだったか
+	 * @return 手番側から見た駒数の差
+	 */
+	private int solve(long own, long opponent, int alpha, int beta, boolean passed) {
+		if ((++nodes & 0xfff) == 0 && System.nanoTime() >= deadline) {
+			aborted = true;
+		}
+		if (aborted) {
+			return 0;
+		}
+		long empty = ~(own | opponent);
+		int empties = Long.bitCount(empty);
+		if (empties == 0) {
+			return Long.bitCount(own) - Long.bitCount(opponent);
+		}
+		if (empties == 1) {
+			return solveLastOne(own, opponent, Long.numberOfTrailingZeros(empty));
+		}
+		if (empties == 2) {
+			int first = Long.numberOfTrailingZeros(empty);
+			int second = 63 - Long.numberOfLeadingZeros(empty);
+			return solveLastTwo(own, opponent, first, second, alpha, beta, false);
+		}
+		if (empties == 3) {
+			return solveLastThree(own, opponent, empty, alpha, beta, false);
+		}
+
+		long moves = BitBoard.legalMoves(own, opponent);
+		if (moves == 0) {
+			if (passed) {
+				return Long.bitCount(own) - Long.bitCount(opponent);
+			}
+			return -solve(opponent, own, -beta, -alpha, true);
+		}
+		if (empties > FASTEST_FIRST_EMPTIES) {
+			return solveFastestFirst(own, opponent, moves, empties, alpha, beta);
+		}
+
+		// 空きマスが奇数個の区画を先に読み、次に偶数個の区画を読む。
+		long oddRegions = 0L;
+		for (long quadrant : QUADRANTS) {
+			if ((Long.bitCount(empty & quadrant) & 1) == 1) {
+				oddRegions |= quadrant;
+			}
+		}
+		int best = -BitBoard.SIZE * BitBoard.SIZE;
+		for (int pass = 0; pass < 2; pass++) {
+			long candidates = moves & (pass == 0 ? oddRegions : ~oddRegions);
+			while (candidates != 0) {
+				long move = candidates & -candidates;
+				candidates ^= move;
+				long flipped = BitBoard.flips(own, opponent, move);
+				int score = -solve(opponent ^ flipped, own | flipped | move, -beta, -alpha, false);
+				if (score > best) {
+					best = score;
+					if (score > alpha) {
+						alpha = score;
+						if (alpha >= beta) {
+							return best;
+						}
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * 相手の着手可能数が少なくなる手から読む（隅は優先する）。
+	 */
+	private int solveFastestFirst(long own, long opponent, long moves, int empties, int alpha, int beta) {
+		// 置換表の上限・下限で窓を狭める。
+		int slot = tableSlot(own, opponent);
+		int hashMove = -1;
+		if (tableOwn[slot] == own && tableOpponent[slot] == opponent && tableEntries[slot] != 0) {
+			int entry = tableEntries[slot];
+			int lower = (entry & 0xff) - 64;
+			int upper = ((entry >>> 8) & 0xff) - 64;
+			hashMove = ((entry >>> 16) & 0xff) - 1;
+			if (lower >= beta) {
+				return lower;
+			}
+			if (upper <= alpha || lower == upper) {
+				return upper;
+			}
+			alpha = Math.max(alpha, lower);
+			beta = Math.min(beta, upper);
+		}
+		int originalAlpha = alpha;
+
+		// 子局面の空きマス数は必ず1つ減るので、空きマス数ごとの格納先は再帰中に上書きされない。
+		long[] children = childBuffers[empties];
+		int[] priorities = priorityBuffers[empties];
+		int size = 0;
+		for (long rest = moves; rest != 0; rest &= rest - 1) {
+			long move = rest & -rest;
+			long flipped = BitBoard.flips(own, opponent, move);
+			long nextOwn = opponent ^ flipped;
+			long nextOpponent = own | flipped | move;
+			// 相手の着手可能数（隅は2つ分として数える）が少ないほど優先する。
+			long replies = BitBoard.legalMoves(nextOwn, nextOpponent);
+			int priority = -(Long.bitCount(replies) + Long.bitCount(replies & CORNERS)) * 16;
+			if ((move & CORNERS) != 0) {
+				priority += 32;
+			}
+			if (Long.numberOfTrailingZeros(move) == hashMove) {
+				priority = Integer.MAX_VALUE;
+			}
+			// 挿入ソート
+			int position = size++;
+			while (position > 0 && priorities[position - 1] < priority) {
+				priorities[position] = priorities[position - 1];
+				children[position * 2] = children[(position - 1) * 2];
+				children[position * 2 + 1] = children[(position - 1) * 2 + 1];
+				position--;
+			}
+			priorities[position] = priority;
+			children[position * 2] = nextOwn;
+			children[position * 2 + 1] = nextOpponent;
+		}
+
+		int best = -BitBoard.SIZE * BitBoard.SIZE - 1;
+		long bestChild = 0L;
+		for (int index = 0; index < size; index++) {
+			long nextOwn = children[index * 2];
+			long nextOpponent = children[index * 2 + 1];
+			int score;
+			if (index == 0) {
+				score = -solve(nextOwn, nextOpponent, -beta, -alpha, false);
+			} else {
+				// 最初の手を超えられるかだけを確かめ、超える場合は読み直す。
+				score = -solve(nextOwn, nextOpponent, -alpha - 1, -alpha, false);
+				if (score > alpha && score < beta) {
+					score = -solve(nextOwn, nextOpponent, -beta, -score, false);
+				}
+			}
+			if (score > best) {
+				best = score;
+				bestChild = nextOpponent;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+
+		if (aborted) {
+			// 打ち切った結果は登録しない。
+			return 0;
+		}
+		// 結果が窓の外なら上限または下限として登録する。
+		int lower = best >= beta || best > originalAlpha ? best : -64;
+		int upper = best <= originalAlpha || best < beta ? best : 64;
+		int move = Long.numberOfTrailingZeros(bestChild & ~own & ~opponent);
+		tableOwn[slot] = own;
+		tableOpponent[slot] = opponent;
+		tableUsed = true;
+		tableEntries[slot] = (lower + 64) | ((upper + 64) << 8) | ((move + 1) << 16);
+		return best;
+	}
+
+	private static int tableSlot(long own, long opponent) {
+		long hash = own * 0x9e3779b97f4a7c15L ^ Long.rotateLeft(opponent * 0xc2b2ae3d27d4eb4fL, 31);
+		return (int) (hash ^ (hash >>> 32)) & (TABLE_SIZE - 1);
+	}
+
+	/**
+	 * 残り3マスの読み（奇数個の区画の空きマスから読む）。
+	 */
+	private int solveLastThree(long own, long opponent, long empty, int alpha, int beta, boolean passed) {
+		nodes++;
+		int[] squares = lastSquares;
+		int count = 0;
+		// 単独で区画に残っている空きマスを先に並べる。
+		for (int pass = 0; pass < 2; pass++) {
+			for (long rest = empty; rest != 0; rest &= rest - 1) {
+				long square = rest & -rest;
+				boolean isOdd = (Long.bitCount(empty & quadrantOf(square)) & 1) == 1;
+				if (isOdd == (pass == 0)) {
+					squares[count++] = Long.numberOfTrailingZeros(square);
+				}
+			}
+		}
+
+		int best = Integer.MIN_VALUE;
+		int square0 = squares[0];
+		int square1 = squares[1];
+		int square2 = squares[2];
+		for (int index = 0; index < 3; index++) {
+			int square = index == 0 ? square0 : index == 1 ? square1 : square2;
+			long move = 1L << square;
+			long flipped = BitBoard.flips(own, opponent, move);
+			if (flipped == 0) {
+				continue;
+			}
+			int other1 = index == 0 ? square1 : square0;
+			int other2 = index == 2 ? square1 : square2;
+			int score = -solveLastTwo(opponent ^ flipped, own | flipped | move, other1, other2, -beta, -alpha, false);
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						return best;
+					}
+				}
+			}
+		}
+		if (best != Integer.MIN_VALUE) {
+			return best;
+		}
+		if (passed) {
+			return Long.bitCount(own) - Long.bitCount(opponent);
+		}
+		return -solveLastThree(opponent, own, empty, -beta, -alpha, true);
+	}
+
+	/**
+	 * 残り2マスの読み
+	 */
+	private int solveLastTwo(long own, long opponent, int first, int second, int alpha, int beta, boolean passed) {
+		nodes++;
+		int best = Integer.MIN_VALUE;
+		long move = 1L << first;
+		long flipped = BitBoard.flips(own, opponent, move);
+		if (flipped != 0) {
+			best = -solveLastOne(opponent ^ flipped, own | flipped | move, second);
+			if (best >= beta) {
+				return best;
+			}
+		}
+		move = 1L << second;
+		flipped = BitBoard.flips(own, opponent, move);
+		if (flipped != 0) {
+			int score = -solveLastOne(opponent ^ flipped, own | flipped | move, first);
+			if (score > best) {
+				best = score;
+			}
+		}
+		if (best != Integer.MIN_VALUE) {
+			return best;
+		}
+		if (passed) {
+			return Long.bitCount(own) - Long.bitCount(opponent);
+		}
+		return -solveLastTwo(opponent, own, first, second, -beta, -alpha, true);
+	}
+
+	/**
+	 * 残り1マスの読み（盤面を更新せずに駒数の差を計算する）。
+	 */
+	private int solveLastOne(long own, long opponent, int square) {
+		nodes++;
+		long move = 1L << square;
+		int ownCount = Long.bitCount(own);
+		int opponentCount = Long.bitCount(opponent);
+		int flipped = Long.bitCount(BitBoard.flips(own, opponent, move));
+		if (flipped > 0) {
+			return (ownCount + flipped + 1) - (opponentCount - flipped);
+		}
+		// 手番側が置けない場合は相手が置く。
+		flipped = Long.bitCount(BitBoard.flips(opponent, own, move));
+		if (flipped > 0) {
+			return (ownCount - flipped) - (opponentCount + flipped + 1);
+		}
+		// どちらも置けない場合は空きマスのまま終局
+		return ownCount - opponentCount;
+	}
+
+	private static long quadrantOf(long square) {
+		for (long quadrant : QUADRANTS) {
+			if ((quadrant & square) != 0) {
+				return quadrant;
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * 8×8以外の盤面の完全読み（相手の着手可能数が少なくなる手から読む）。
+	 */
+	private int solve(Board board, Piece piece, int alpha, int beta, boolean passed) {
+		if ((++nodes & 0xff) == 0 && System.nanoTime() >= deadline) {
+			aborted = true;
+		}
+		if (aborted) {
+			return 0;
+		}
+		int squareCount = board.getSquareCount();
+		int empties = board.count(Piece.EMPTY);
+		if (empties == 0) {
+			return board.count(piece) - board.count(piece.opponent());
+		}
+		// 空きマス数ごとの格納先を使い回す（パスしても空きマス数は変わらないが、パスした側は格納先を使わない）。
+		if (genericMoves[empties] == null) {
+			genericMoves[empties] = new int[empties];
+			genericPriorities[empties] = new int[empties];
+		}
+		int[] moves = genericMoves[empties];
+		int[] priorities = genericPriorities[empties];
+		int count = board.legalMoves(piece, moves);
+		if (count == 0) {
+			if (passed) {
+				return board.count(piece) - board.count(piece.opponent());
+			}
+			return -solve(board, piece.opponent(), -beta, -alpha, true);
+		}
+
+		for (int index = 0; index < count; index++) {
+			int move = moves[index];
+			board.makeMove(move % squareCount, move / squareCount, piece);
+			int priority = -board.legalMoveCount(piece.opponent());
+			board.unmakeMove();
+			// 挿入ソート
+			int position = index;
+			while (position > 0 && priorities[position - 1] < priority) {
+				priorities[position] = priorities[position - 1];
+				moves[position] = moves[position - 1];
+				position--;
+			}
+			priorities[position] = priority;
+			moves[position] = move;
+		}
+
+		int best = -squareCount * squareCount;
+		for (int index = 0; index < count; index++) {
+			int move = moves[index];
+			board.makeMove(move % squareCount, move / squareCount, piece);
+			int score = -solve(board, piece.opponent(), -beta, -alpha, false);
+			board.unmakeMove();
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * 8×8以外の読みで使う格納先を、指定した空きマス数まで使えるようにする。
+	 */
+	private void prepareGenericBuffers(int empties) {
+		if (genericMoves.length <= empties) {
+			genericMoves = Arrays.copyOf(genericMoves, empties + 1);
+			genericPriorities = Arrays.copyOf(genericPriorities, empties + 1);
+		}
+	}
+
+	/**
+	 * 終盤の局面を完全読みし、結果と所要時間を出力する分析用プログラム。<br>
+	 * 引数：空きマス数 局面数 シード（省略時は 20 5 1）
+	 */
+	public static void main(String[] args) {
+		int empties = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		int positionCount = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+		Random random = new Random(seed);
+		EndgameSolver solver = new EndgameSolver();
+		int solved = 0;
+		while (solved < positionCount) {
+			Board board = new BitBoard();
+			Piece piece = SearchBenchmark.playRandomly(board, random, 60 - empties);
+			if (board.count(Piece.EMPTY) != empties || board.legalMoveCount(piece) == 0) {
+				// 途中で終局した局面は使わない。
+				continue;
+			}
+			long start = System.nanoTime();
+			int score = solver.solve(board, piece);
+			long elapsed = System.nanoTime() - start;
+			print(String.format("局面%d：空き%dマス %s番 駒数の差%+d %,dノード %dms",
+					++solved, empties, piece.getState(), score, solver.getNodes(), elapsed / 1_000_000));
+		}
+	}
+
+}
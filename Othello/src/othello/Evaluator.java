@@ -0,0 +1,16 @@
+package othello;
+
+/**
+ * 盤面の評価関数。
+ */
+public interface Evaluator {
+
+	/**
+	 * 指定した駒から見た盤面の評価値を求める。
+	 * @param board 盤面オブジェクト
+	 * @param piece 評価する側の駒
+	 * @return 評価値（大きいほど有利）
+	 */
+	int evaluate(Board board, Piece piece);
+
+}
@@ -0,0 +1,66 @@
+package othello;
+
+/**
+ * 出力内容を {@link GameEvent} として {@link GameEventBus} に発行する出力先。<br>
+ * 発行は待ち行列に積むだけなので、実際の出力は購読者のスレッドで行われます。
+ */
+public class EventBusOutput implements GameOutput {
+
+	// 発行先
+	private final GameEventBus bus;
+	// 対局番号
+	private final long game;
+	// 盤面の表示を発行する場合はtrue（盤面を複製するため、表示しない購読者だけの場合はfalseにする）
+	private final boolean boards;
+
+	/**
+	 * @param bus 発行先
+	 * @param game 対局番号
+	 * @param boards 盤面の表示を発行する場合はtrue
+	 */
+	EventBusOutput(GameEventBus bus, long game, boolean boards) {
+		this.bus = bus;
+		this.game = game;
+		this.boards = boards;
+	}
+
+	@Override
+	public void print(String msg) {
+		bus.publish(GameEvent.message(game, GameEvent.Type.PRINT, msg));
+	}
+
+	@Override
+	public void printInfo(String msg) {
+		bus.publish(GameEvent.message(game, GameEvent.Type.INFO, msg));
+	}
+
+	@Override
+	public void printAlert(String msg) {
+		bus.publish(GameEvent.message(game, GameEvent.Type.ALERT, msg));
+	}
+
+	@Override
+	public void printBoard(Board board) {
+		if (boards) {
+			bus.publish(GameEvent.board(game, board.copy()));
+		}
+	}
+
+	@Override
+	public void printMove(Board board, Piece piece, int column, int row, int flips) {
+		bus.publish(GameEvent.move(game, piece, column, row, flips, board.count(Piece.BLACK),
+				board.count(Piece.WHITE)));
+	}
+
+	@Override
+	public void printPass(Piece piece) {
+		bus.publish(GameEvent.pass(game, piece));
+	}
+
+	@Override
+	public void printGameOver(Board board) {
+		bus.publish(GameEvent.gameOver(game, boards ? board.copy() : null, board.count(Piece.BLACK),
+				board.count(Piece.WHITE)));
+	}
+
+}
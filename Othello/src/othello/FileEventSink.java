@@ -0,0 +1,76 @@
+package othello;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 出来事をタブ区切りの1行ずつファイルに記録する購読者。<br>
+ * 書式：対局番号 種類 駒 列 行 裏返した数 黒の駒数 白の駒数 文字列（該当しない項目は「-」）<br>
+ * 盤面の表示は記録しません。書き込みはバッファに溜め、終局ごとと終了時にファイルへ書き出します。
+ */
+public class FileEventSink implements GameEventBus.Subscriber {
+
+	private final BufferedWriter writer;
+	private final StringBuilder line = new StringBuilder();
+
+	/**
+	 * @param path 記録するファイル（既にある場合は上書きする）
+	 */
+	FileEventSink(Path path) throws IOException {
+		this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public void onEvent(GameEvent event) {
+		if (event.getType() == GameEvent.Type.BOARD) {
+			return;
+		}
+		line.setLength(0);
+		line.append(event.getGame()).append('\t').append(event.getType());
+		switch (event.getType()) {
+		case MOVE:
+			line.append('\t').append(event.getPiece()).append('\t').append(event.getColumn()).append('\t')
+					.append(event.getRow()).append('\t').append(event.getFlips());
+			appendCounts(event);
+			line.append("\t-");
+			break;
+		case PASS:
+			line.append('\t').append(event.getPiece()).append("\t-\t-\t-\t-\t-\t-");
+			break;
+		case GAME_OVER:
+			line.append("\t-\t-\t-\t-");
+			appendCounts(event);
+			line.append("\t-");
+			break;
+		default:
+			line.append("\t-\t-\t-\t-\t-\t-\t").append(event.getMessage());
+			break;
+		}
+		try {
+			writer.append(line).append(System.lineSeparator());
+			if (event.getType() == GameEvent.Type.GAME_OVER) {
+				writer.flush();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void appendCounts(GameEvent event) {
+		line.append('\t').append(event.getBlackCount()).append('\t').append(event.getWhiteCount());
+	}
+
+	@Override
+	public void close() {
+		try {
+			writer.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+package othello;
+
+/**
+ * 対局中に発生した出来事。{@link GameEventBus} で購読者に配信します。<br>
+ * 作成後は変更しないため、別のスレッドの購読者からそのまま参照できます。
+ */
+final public class GameEvent {
+
+	/**
+	 * 出来事の種類
+	 */
+	enum Type {
+		// 文字列の出力（通常・情報・警告）
+		PRINT, INFO, ALERT,
+		// 盤面の表示（盤面の複製を持つ）
+		BOARD,
+		// 着手
+		MOVE,
+		// パス
+		PASS,
+		// 終局（最後の盤面の複製を持つ）
+		GAME_OVER;
+
+		/**
+		 * 配信が追いつかない場合に、未配信の同じ種類の出来事を最新のもので置き換えてよいか
+		 */
+		boolean isCoalescable() {
+			return this == BOARD;
+		}
+	}
+
+	private final Type type;
+	// 対局番号
+	private final long game;
+	private final String message;
+	private final Board board;
+	private final Piece piece;
+	private final int column;
+	private final int row;
+	// 裏返した駒の数
+	private final int flips;
+	// 出来事の後の駒数
+	private final int blackCount;
+	private final int whiteCount;
+
+	private GameEvent(Type type, long game, String message, Board board, Piece piece, int column, int row,
+			int flips, int blackCount, int whiteCount) {
+		this.type = type;
+		this.game = game;
+		this.message = message;
+		this.board = board;
+		this.piece = piece;
+		this.column = column;
+		this.row = row;
+		this.flips = flips;
+		this.blackCount = blackCount;
+		this.whiteCount = whiteCount;
+	}
+
+	/**
+	 * 文字列の出力
+	 * @param type PRINT・INFO・ALERT のいずれか
+	 */
+	static GameEvent message(long game, Type type, String message) {
+		return new GameEvent(type, game, message, null, null, -1, -1, 0, 0, 0);
+	}
+
+	/**
+	 * 盤面の表示
+	 * @param board 盤面の複製（配信後に変更しないこと）
+	 */
+	static GameEvent board(long game, Board board) {
+		return new GameEvent(Type.BOARD, game, null, board, null, -1, -1, 0, 0, 0);
+	}
+
+	/**
+	 * 着手
+	 */
+	static GameEvent move(long game, Piece piece, int column, int row, int flips, int blackCount, int whiteCount) {
+		return new GameEvent(Type.MOVE, game, null, null, piece, column, row, flips, blackCount, whiteCount);
+	}
+
+	/**
+	 * パス
+	 */
+	static GameEvent pass(long game, Piece piece) {
+		return new GameEvent(Type.PASS, game, null, null, piece, -1, -1, 0, 0, 0);
+	}
+
+	/**
+	 * 終局
+	 * @param board 最後の盤面の複製（配信後に変更しないこと）
+	 */
+	static GameEvent gameOver(long game, Board board, int blackCount, int whiteCount) {
+		return new GameEvent(Type.GAME_OVER, game, null, board, null, -1, -1, 0, blackCount, whiteCount);
+	}
+
+	Type getType() {
+		return type;
+	}
+
+	long getGame() {
+		return game;
+	}
+
+	String getMessage() {
+		return message;
+	}
+
+	Board getBoard() {
+		return board;
+	}
+
+	Piece getPiece() {
+		return piece;
+	}
+
+	int getColumn() {
+		return column;
+	}
+
+	int getRow() {
+		return row;
+	}
+
+	int getFlips() {
+		return flips;
+	}
+
+	int getBlackCount() {
+		return blackCount;
+	}
+
+	int getWhiteCount() {
+		return whiteCount;
+	}
+
+}
@@ -0,0 +1,353 @@
+package othello;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 対局中の出来事（{@link GameEvent}）を購読者に配信する。<br>
+ * 購読者ごとに容量の決まった待ち行列と専用のスレッドを持ち、出来事の発行元は待ち行列に積むだけで戻ります。
+ * そのため、出力の遅い購読者（コンソールなど）が対局や思考を止めることはありません。<br>
+ * 待ち行列が一杯の場合の扱いは購読者ごとに {@link Policy} で指定します。
+ */
+public class GameEventBus implements AutoCloseable {
+
+	/**
+	 * 待ち行列が一杯の場合の扱い
+	 */
+	enum Policy {
+		// 空きができるまで発行元を待たせる（出来事を失わない）
+		BLOCK,
+		// 新しい出来事を捨てる（発行元を待たせない）
+		DROP,
+		// 盤面の表示は未配信の最新の盤面の表示を取り除いて末尾に積み、それ以外は空きができるまで待たせる
+		COALESCE;
+	}
+
+	/**
+	 * 出来事の購読者。呼び出しは購読ごとの専用のスレッドから順に行います。
+	 */
+	interface Subscriber {
+		/**
+		 * 出来事を処理する。
+		 */
+		void onEvent(GameEvent event);
+
+		/**
+		 * 配信を終了する（残っていた出来事を全て処理した後に呼び出します）。
+		 */
+		default void close() {
+		}
+	}
+
+	// 既定の待ち行列の容量
+	static final int DEFAULT_CAPACITY = 1024;
+
+	private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+	private volatile boolean closed;
+
+	/**
+	 * システムプロパティ othello.events.policy（BLOCK・DROP・COALESCE）で指定された扱いを取得する。
+	 * @param defaultPolicy 指定が無い場合の扱い
+	 */
+	static Policy policyFromProperties(Policy defaultPolicy) {
+		String value = System.getProperty("othello.events.policy");
+		return value == null ? defaultPolicy : Policy.valueOf(value.toUpperCase());
+	}
+
+	/**
+	 * システムプロパティ othello.events.capacity で指定された待ち行列の容量を取得する（省略時は {@link #DEFAULT_CAPACITY}）。
+	 */
+	static int capacityFromProperties() {
+		return Integer.getInteger("othello.events.capacity", DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * システムプロパティで指定された記録・集計の購読者を登録する。<br>
+	 * othello.events.log（記録するファイル、{@link FileEventSink}）と
+	 * othello.events.stats（true で集計、{@link StatsEventSink}）を参照します。
+	 * @param defaultPolicy othello.events.policy の指定が無い場合の扱い
+	 * @return 集計の購読者（集計しない場合はnull）
+	 */
+	StatsEventSink subscribeFromProperties(Policy defaultPolicy) {
+		Policy policy = policyFromProperties(defaultPolicy);
+		int capacity = capacityFromProperties();
+		String log = System.getProperty("othello.events.log");
+		if (log != null) {
+			try {
+				subscribe("log", new FileEventSink(Paths.get(log)), capacity, policy);
+			} catch (IOException e) {
+				ConsolePrinter.printAlert("記録ファイルを開けないため、記録せずに進めます。" + e.getMessage());
+			}
+		}
+		if (!Boolean.getBoolean("othello.events.stats")) {
+			return null;
+		}
+		StatsEventSink stats = new StatsEventSink();
+		subscribe("stats", stats, capacity, policy);
+		return stats;
+	}
+
+	/**
+	 * 購読者を登録し、配信用のスレッドを開始する。
+	 * @param name 購読の名前（スレッド名とエラーの出力に使う）
+	 * @param subscriber 購読者
+	 * @param capacity 待ち行列の容量
+	 * @param policy 待ち行列が一杯の場合の扱い
+	 * @return 購読（配信の状況を参照できる）
+	 */
+	Subscription subscribe(String name, Subscriber subscriber, int capacity, Policy policy) {
+		if (closed) {
+			throw new IllegalStateException("配信は終了しています。");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("待ち行列の容量は1以上を指定してください：" + capacity);
+		}
+		Subscription subscription = new Subscription(name, subscriber, capacity, policy);
+		subscriptions.add(subscription);
+		subscription.thread.start();
+		return subscription;
+	}
+
+	/**
+	 * 出来事を全ての購読者の待ち行列に積む。
+	 */
+	void publish(GameEvent event) {
+		if (closed) {
+			throw new IllegalStateException("配信は終了しています。");
+		}
+		for (Subscription subscription : subscriptions) {
+			subscription.offer(event);
+		}
+	}
+
+	/**
+	 * 全ての購読で、待ち行列が一杯のために捨てた出来事の数
+	 */
+	long getDropped() {
+		long dropped = 0;
+		for (Subscription subscription : subscriptions) {
+			dropped += subscription.getDropped();
+		}
+		return dropped;
+	}
+
+	/**
+	 * 購読者が1つでもあるか
+	 */
+	boolean hasSubscribers() {
+		return !subscriptions.isEmpty();
+	}
+
+	/**
+	 * それまでに発行した出来事を全ての購読者が処理し終えるまで待つ（入力を求める前に表示を揃えるためなど）。
+	 */
+	void awaitIdle() throws InterruptedException {
+		for (Subscription subscription : subscriptions) {
+			subscription.awaitIdle();
+		}
+	}
+
+	/**
+	 * 残っている出来事を全て処理させた上で配信を終了する。
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		boolean interrupted = false;
+		for (Subscription subscription : subscriptions) {
+			subscription.finish();
+		}
+		for (Subscription subscription : subscriptions) {
+			while (true) {
+				try {
+					subscription.thread.join();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 購読者1つ分の待ち行列と配信用のスレッド。
+	 */
+	static final class Subscription {
+
+		private final String name;
+		private final Subscriber subscriber;
+		private final Policy policy;
+		private final Thread thread;
+
+		// 環状の待ち行列
+		private final GameEvent[] queue;
+		private int head;
+		private int size;
+		// 購読者が処理中ならtrue
+		private boolean busy;
+		private boolean finished;
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition notEmpty = lock.newCondition();
+		private final Condition notFull = lock.newCondition();
+		private final Condition idle = lock.newCondition();
+
+		// 捨てた出来事と置き換えた出来事の数
+		private long dropped;
+		private long coalesced;
+
+		private Subscription(String name, Subscriber subscriber, int capacity, Policy policy) {
+			this.name = name;
+			this.subscriber = subscriber;
+			this.policy = policy;
+			this.queue = new GameEvent[capacity];
+			this.thread = new Thread(this::run, "othello-events-" + name);
+			this.thread.setDaemon(true);
+		}
+
+		private void offer(GameEvent event) {
+			lock.lock();
+			try {
+				if (size == queue.length) {
+					if (policy == Policy.DROP) {
+						dropped++;
+						return;
+					}
+					if (policy == Policy.COALESCE && event.getType().isCoalescable() && replaceLatest(event)) {
+						coalesced++;
+						return;
+					}
+					while (size == queue.length) {
+						notFull.awaitUninterruptibly();
+					}
+				}
+				queue[(head + size) % queue.length] = event;
+				size++;
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * 未配信の同じ種類の出来事のうち最新のものを取り除き、新しい出来事を末尾に積む。<br>
+		 * 元の位置で置き換えると、先に発行された出来事より前に新しい盤面が配信されるため、後ろの出来事を詰めて発行順を保ちます。
+		 * @return 置き換えた場合はtrue
+		 */
+		private boolean replaceLatest(GameEvent event) {
+			for (int offset = size - 1; offset >= 0; offset--) {
+				if (queue[(head + offset) % queue.length].getType() == event.getType()) {
+					for (int next = offset + 1; next < size; next++) {
+						queue[(head + next - 1) % queue.length] = queue[(head + next) % queue.length];
+					}
+					queue[(head + size - 1) % queue.length] = event;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void run() {
+			while (true) {
+				GameEvent event;
+				lock.lock();
+				try {
+					while (size == 0 && !finished) {
+						notEmpty.awaitUninterruptibly();
+					}
+					if (size == 0) {
+						break;
+					}
+					event = queue[head];
+					queue[head] = null;
+					head = (head + 1) % queue.length;
+					size--;
+					busy = true;
+					notFull.signal();
+				} finally {
+					lock.unlock();
+				}
+				try {
+					subscriber.onEvent(event);
+				} catch (RuntimeException e) {
+					// 1つの出来事の失敗で配信全体を止めない。
+					ConsolePrinter.printAlert(String.format("[%s]で出来事の処理中にエラーが発生しました。%s", name, e));
+				}
+				lock.lock();
+				try {
+					busy = false;
+					if (size == 0) {
+						idle.signalAll();
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+			try {
+				subscriber.close();
+			} catch (RuntimeException e) {
+				ConsolePrinter.printAlert(String.format("[%s]の終了処理でエラーが発生しました。%s", name, e));
+			}
+		}
+
+		private void awaitIdle() throws InterruptedException {
+			lock.lock();
+			try {
+				while (size > 0 || busy) {
+					idle.await();
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void finish() {
+			lock.lock();
+			try {
+				finished = true;
+				notEmpty.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * 待ち行列が一杯で捨てた出来事の数
+		 */
+		long getDropped() {
+			lock.lock();
+			try {
+				return dropped;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		/**
+		 * 待ち行列が一杯で最新のものに置き換えた出来事の数
+		 */
+		long getCoalesced() {
+			lock.lock();
+			try {
+				return coalesced;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,531 @@
+package othello;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 対局中の手順を追記していく先行書き込みログ（ジャーナル）。<br>
+ * 着手の追記は対局ごとの手順に加えるだけで戻り、専用のスレッドが一定間隔ごとに前回の書き込みからの差分を
+ * まとめてファイルに書き込んで fsync します（グループコミット）。書き込み間隔の間に始まって終局した対局は
+ * 書き込みません。プロセスが異常終了しても、最後の書き込みまでの手順から対局を再開できます。
+ * 失う可能性があるのは、最後の書き込みから書き込み間隔の間に追記した手だけです。<br>
+ * ファイル形式（ビッグエンディアン）：
+ * <pre>
+ * ヘッダー：識別子(int) バージョン(int)
+ * フレーム：内容のバイト数(int) 内容のCRC32(int) 内容 …（1回の書き込みで1フレーム）
+ * 内容　　：記録 …
+ *   開始　　1 対局番号(可変長) 条件(1バイト、{@link GameRecordWriter} と同じ)
+ *   着手　　2 対局番号(可変長) マス(可変長)
+ *   パス　　3 対局番号(可変長)
+ *   終局　　4 対局番号(可変長)
+ * </pre>
+ * 開く時は、途中で切れたフレームやCRC32が一致しないフレーム以降を書き込み途中のものとして切り捨てます。
+ * 進行中の対局が無くなった時点でファイルをヘッダーだけに戻し、ファイルが一定の大きさを超えた場合は
+ * 進行中の対局の手順だけを書き直して小さくします。
+ */
+public class GameJournal implements Closeable {
+
+	// ファイルの識別子（"OJN1"）
+	static final int MAGIC = 0x4f4a4e31;
+	// ファイル形式のバージョン
+	static final int VERSION = 1;
+	// ヘッダーのバイト数
+	static final int HEADER_BYTES = 8;
+	// フレームの先頭（バイト数とCRC32）のバイト数
+	private static final int FRAME_HEADER_BYTES = 8;
+	// 既定の書き込み間隔（ミリ秒）
+	static final long DEFAULT_SYNC_INTERVAL_MILLIS = 100;
+	// 既定の書き直しを行うファイルの大きさ
+	static final long DEFAULT_COMPACT_BYTES = 64L << 20;
+
+	// 記録の種類
+	private static final int START = 1;
+	private static final int MOVE = 2;
+	private static final int PASS = 3;
+	private static final int END = 4;
+
+	private final Path path;
+	private final long syncIntervalMillis;
+	private final long compactBytes;
+	private final Thread committer;
+
+	// 以下の書き込み用の状態は commitLock を取得して操作する。
+	private final Object commitLock = new Object();
+	private FileChannel channel;
+	private byte[] writing = new byte[1 << 16];
+	private final CRC32 crc = new CRC32();
+
+	// 以下の追記用の状態は this を取得して操作する。
+	// 書き込む内容（書き込み時に組み立てる）
+	private byte[] pending = new byte[1 << 16];
+	private int pendingLength;
+	// 対局番号 → 進行中の対局
+	private final Map<Long, Game> openGames = new LinkedHashMap<>();
+	// 開始を書き込み済みで、終局を書き込んでいない対局の番号
+	private long[] endedGames = new long[16];
+	private int endedCount;
+	private long nextGame;
+	private boolean closed;
+	// 書き込みに失敗した場合の例外
+	private IOException failure;
+
+	private GameJournal(Path path, FileChannel channel, long syncIntervalMillis, long compactBytes) {
+		this.path = path;
+		this.channel = channel;
+		this.syncIntervalMillis = syncIntervalMillis;
+		this.compactBytes = compactBytes;
+		this.committer = new Thread(this::runCommitter, "othello-journal");
+		this.committer.setDaemon(true);
+	}
+
+	/**
+	 * システムプロパティ othello.journal で指定されたジャーナルを開く。<br>
+	 * 書き込み間隔は othello.journal.syncMillis（省略時は {@link #DEFAULT_SYNC_INTERVAL_MILLIS}）で指定します。
+	 * @return ジャーナル（指定が無い場合はnull）
+	 */
+	static GameJournal openFromProperties() throws IOException {
+		String path = System.getProperty("othello.journal");
+		if (path == null) {
+			return null;
+		}
+		return open(Paths.get(path), Long.getLong("othello.journal.syncMillis", DEFAULT_SYNC_INTERVAL_MILLIS),
+				DEFAULT_COMPACT_BYTES);
+	}
+
+	/**
+	 * ジャーナルを開き、書き込み途中で終わった対局を読み込む（ファイルが無い場合は作成する）。
+	 * @param path ファイルのパス
+	 * @param syncIntervalMillis 書き込み間隔（ミリ秒）
+	 * @param compactBytes 進行中の対局だけに書き直すファイルの大きさ
+	 * @return ジャーナル
+	 * @throws IOException ファイルが読み書きできない場合や形式が不正な場合
+	 */
+	static GameJournal open(Path path, long syncIntervalMillis, long compactBytes) throws IOException {
+		if (syncIntervalMillis <= 0) {
+			throw new IllegalArgumentException("書き込み間隔は1ミリ秒以上を指定してください：" + syncIntervalMillis);
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			GameJournal journal = new GameJournal(path, channel, syncIntervalMillis, compactBytes);
+			if (channel.size() == 0) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+				header.flip();
+				writeFully(channel, header);
+				channel.force(true);
+			} else {
+				journal.recover();
+			}
+			channel.position(channel.size());
+			journal.committer.start();
+			return journal;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * ファイルの先頭から読み込み、進行中の対局を復元する（書き込み途中のフレームは切り捨てる）。
+	 */
+	private void recover() throws IOException {
+		long size = channel.size();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		readFully(channel, header, 0);
+		header.flip();
+		if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+			throw new IOException("ジャーナルの形式が不正です：" + path);
+		}
+		long position = HEADER_BYTES;
+		ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+		while (position + FRAME_HEADER_BYTES <= size) {
+			frameHeader.clear();
+			readFully(channel, frameHeader, position);
+			int length = frameHeader.getInt(0);
+			int checksum = frameHeader.getInt(4);
+			if (length < 0 || position + FRAME_HEADER_BYTES + length > size) {
+				break;
+			}
+			ByteBuffer payload = ByteBuffer.allocate(length);
+			readFully(channel, payload, position + FRAME_HEADER_BYTES);
+			crc.reset();
+			crc.update(payload.array(), 0, length);
+			if ((int) crc.getValue() != checksum) {
+				break;
+			}
+			apply(payload.array(), length);
+			position += FRAME_HEADER_BYTES + length;
+		}
+		if (position < size) {
+			// 書き込み途中で終わったフレームを切り捨てる。
+			channel.truncate(position);
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * フレームの内容を進行中の対局に反映する。
+	 */
+	private void apply(byte[] bytes, int length) throws IOException {
+		int[] cursor = { 0 };
+		while (cursor[0] < length) {
+			int type = bytes[cursor[0]++];
+			long id = readVarLong(bytes, cursor);
+			nextGame = Math.max(nextGame, id + 1);
+			Game game = openGames.get(id);
+			if (type == START) {
+				int flags = bytes[cursor[0]++] & 0xff;
+				GameRecord record = new GameRecord();
+				record.reset(flags & GameRecordWriter.SQUARE_COUNT_MASK,
+						(flags & GameRecordWriter.WHITE_FIRST) != 0 ? Piece.WHITE : Piece.BLACK,
+						(flags & GameRecordWriter.BLACK_DIAGONAL) != 0 ? Piece.BLACK : Piece.WHITE);
+				game = new Game(id, record);
+				game.started = true;
+				openGames.put(id, game);
+			} else if (game == null) {
+				throw new IOException("開始していない対局の記録があります：" + id);
+			} else if (type == MOVE) {
+				game.record.addMove((int) readVarLong(bytes, cursor));
+				game.committedMoves++;
+			} else if (type == PASS) {
+				game.record.addPass();
+				game.committedMoves++;
+			} else if (type == END) {
+				openGames.remove(id);
+			} else {
+				throw new IOException("不明な種類の記録です：" + type);
+			}
+		}
+	}
+
+	/**
+	 * 進行中の対局（開始した順）。開いた直後は、書き込み途中で終わった対局です。
+	 */
+	synchronized List<Game> getUnfinishedGames() {
+		return new ArrayList<>(openGames.values());
+	}
+
+	/**
+	 * 対局の開始を追記する。
+	 * @param board 初期配置の盤面
+	 * @param firstPiece 先手の駒
+	 * @return 対局（着手やパスの追記に使う）
+	 */
+	synchronized Game start(Board board, Piece firstPiece) {
+		checkWritable();
+		GameRecord record = new GameRecord();
+		record.reset(board, firstPiece);
+		Game game = new Game(nextGame++, record);
+		openGames.put(game.id, game);
+		return game;
+	}
+
+	private synchronized void addMove(Game game, int square) {
+		checkWritable();
+		game.record.addMove(square);
+	}
+
+	private synchronized void endGame(Game game) {
+		checkWritable();
+		if (openGames.remove(game.id) == null || !game.started) {
+			// 開始を書き込んでいない対局は、何も書き込まずに済ませる。
+			return;
+		}
+		if (endedCount == endedGames.length) {
+			endedGames = Arrays.copyOf(endedGames, endedCount * 2);
+		}
+		endedGames[endedCount++] = game.id;
+	}
+
+	/**
+	 * 追記済みの内容を今すぐ書き込んで fsync する。
+	 */
+	void sync() throws IOException {
+		commit();
+	}
+
+	/**
+	 * 追記済みの内容を書き込んで閉じる。
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			notifyAll();
+		}
+		try {
+			committer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			commit();
+		} finally {
+			synchronized (commitLock) {
+				channel.close();
+			}
+		}
+	}
+
+	private void runCommitter() {
+		while (true) {
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				try {
+					wait(syncIntervalMillis);
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (closed) {
+					return;
+				}
+			}
+			try {
+				commit();
+			} catch (IOException e) {
+				synchronized (this) {
+					failure = e;
+				}
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 前回の書き込みからの差分を1フレームとして書き込み、fsync する。
+	 */
+	private void commit() throws IOException {
+		synchronized (commitLock) {
+			int length;
+			boolean idle;
+			boolean compact;
+			synchronized (this) {
+				if (failure != null) {
+					throw failure;
+				}
+				compact = channel.size() > compactBytes;
+				idle = openGames.isEmpty();
+				pendingLength = 0;
+				// 書き直す場合は、進行中の対局の手順を最初から書き込む。
+				for (Game game : openGames.values()) {
+					if (compact || !game.started) {
+						appendStart(game);
+						appendMoves(game, 0);
+					} else {
+						appendMoves(game, game.committedMoves);
+					}
+					game.started = true;
+					game.committedMoves = game.record.getMoveCount();
+				}
+				if (!compact && !idle) {
+					for (int index = 0; index < endedCount; index++) {
+						ensurePending(1 + 10);
+						pending[pendingLength++] = END;
+						appendVarLong(endedGames[index]);
+					}
+				}
+				endedCount = 0;
+				if (idle ? channel.size() == HEADER_BYTES : pendingLength == 0) {
+					return;
+				}
+				byte[] swap = writing;
+				writing = pending;
+				pending = swap;
+				length = pendingLength;
+				pendingLength = 0;
+			}
+			if (idle) {
+				// 進行中の対局が無いので、ヘッダーだけに戻す。
+				channel.truncate(HEADER_BYTES);
+				channel.force(true);
+			} else if (compact) {
+				rewrite(length);
+			} else {
+				writeFrame(channel, length);
+				channel.force(false);
+			}
+		}
+	}
+
+	/**
+	 * 別のファイルにヘッダーと1フレームを書き込み、元のファイルと置き換える。
+	 */
+	private void rewrite(int length) throws IOException {
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION);
+			header.flip();
+			writeFully(output, header);
+			writeFrame(output, length);
+			output.force(true);
+		}
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel.close();
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		channel.position(channel.size());
+	}
+
+	private void writeFrame(FileChannel output, int length) throws IOException {
+		crc.reset();
+		crc.update(writing, 0, length);
+		ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES).putInt(length).putInt((int) crc.getValue());
+		header.flip();
+		writeFully(output, header);
+		writeFully(output, ByteBuffer.wrap(writing, 0, length));
+	}
+
+	private void appendStart(Game game) {
+		ensurePending(1 + 10 + 1);
+		pending[pendingLength++] = START;
+		appendVarLong(game.id);
+		pending[pendingLength++] = (byte) flags(game.record);
+	}
+
+	/**
+	 * 対局の手順のうち、指定した手以降を書き込む内容に加える。
+	 */
+	private void appendMoves(Game game, int from) {
+		for (int index = from; index < game.record.getMoveCount(); index++) {
+			int move = game.record.getMove(index);
+			ensurePending(1 + 10 + 5);
+			pending[pendingLength++] = (byte) (move == GameRecord.PASS ? PASS : MOVE);
+			appendVarLong(game.id);
+			if (move != GameRecord.PASS) {
+				appendVarLong(move);
+			}
+		}
+	}
+
+	private void checkWritable() {
+		if (closed) {
+			throw new IllegalStateException("ジャーナルは閉じています。");
+		}
+		if (failure != null) {
+			throw new UncheckedIOException("ジャーナルに書き込めません。", failure);
+		}
+	}
+
+	private void ensurePending(int bytes) {
+		if (pendingLength + bytes > pending.length) {
+			pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + bytes));
+		}
+	}
+
+	private void appendVarLong(long value) {
+		while ((value & ~0x7fL) != 0) {
+			pending[pendingLength++] = (byte) (value & 0x7f | 0x80);
+			value >>>= 7;
+		}
+		pending[pendingLength++] = (byte) value;
+	}
+
+	private static long readVarLong(byte[] bytes, int[] cursor) {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			int current = bytes[cursor[0]++] & 0xff;
+			value |= (long) (current & 0x7f) << shift;
+			if (current < 0x80) {
+				return value;
+			}
+		}
+	}
+
+	private static int flags(GameRecord record) {
+		int flags = record.getSquareCount();
+		if (record.getFirstPiece().is(Piece.WHITE)) {
+			flags |= GameRecordWriter.WHITE_FIRST;
+		}
+		if (record.getDiagonalPiece().is(Piece.BLACK)) {
+			flags |= GameRecordWriter.BLACK_DIAGONAL;
+		}
+		return flags;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * ジャーナルに記録中の1局。
+	 */
+	final class Game {
+
+		private final long id;
+		// 開始から現在までの手順（書き直しと再開に使う）
+		private final GameRecord record;
+		// 以下はジャーナルの this を取得して操作する。
+		// 開始を書き込み済みならtrue
+		private boolean started;
+		// 書き込み済みの手数
+		private int committedMoves;
+
+		private Game(long id, GameRecord record) {
+			this.id = id;
+			this.record = record;
+		}
+
+		long getId() {
+			return id;
+		}
+
+		/**
+		 * 開始から現在までの手順（変更しないこと）
+		 */
+		GameRecord getRecord() {
+			return record;
+		}
+
+		/**
+		 * 着手を追記する。
+		 * @param square 配置したマス（「行番号 × マス数 + 列番号」の値）
+		 */
+		void move(int square) {
+			addMove(this, square);
+		}
+
+		/**
+		 * パスを追記する。
+		 */
+		void pass() {
+			addMove(this, GameRecord.PASS);
+		}
+
+		/**
+		 * 終局を追記する（以降はこの対局を再開の対象にしない）。
+		 */
+		void end() {
+			endGame(this);
+		}
+	}
+
+}
@@ -4,7 +4,9 @@ import static othello.ConsolePrinter.*;
 import static othello.Utils.*;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 
@@ -13,31 +15,62 @@ public class GameManager {
 	// プレイヤー群
 	final Player[] players;
 	// 使用する駒
-	static Piece PLAYER_PIECE = null;
-	static Piece CPU_PIECE = null;
+	private final Piece playerPiece;
+	private final Piece cpuPiece;
 
 	// 入力要求用インスタンス
 	BufferedReader reader;
 	// 縦×横のマス数
 	private int squareCount;
 	// 自動進行モードの有効/無効
-	private static boolean enableAutoMode;
+	private boolean enableAutoMode;
+	// 盤面の描画
+	private final BoardRenderer renderer = BoardRenderer.fromProperties();
+	// 手順の追記先（使わない場合はnull）
+	private GameJournal journal;
+	// ジャーナルから再開する対局（新しく始める場合はnull）
+	private GameJournal.Game resumedGame;
 
 	GameManager(boolean playerIsFirst) {
+		this(playerIsFirst, null);
+	}
+
+	/**
+	 * @param playerIsFirst プレイヤーが先手ならtrue
+	 * @param book CPUが使う定石集（使わない場合はnull）
+	 */
+	GameManager(boolean playerIsFirst, OpeningBook book) {
 		// 先手/後手の設定
 		if (playerIsFirst) {
-			PLAYER_PIECE = Piece.BLACK;
-			CPU_PIECE = Piece.WHITE;
+			playerPiece = Piece.BLACK;
+			cpuPiece = Piece.WHITE;
 		} else {
-			PLAYER_PIECE = Piece.WHITE;
-			CPU_PIECE = Piece.BLACK;
+			playerPiece = Piece.WHITE;
+			cpuPiece = Piece.BLACK;
 		}
 		// プレイヤー情報の取得
-		players = getPlayers();
+		players = getPlayers(playerPiece, book);
 		// 入力要求用インスタンスの取得
 		reader = new BufferedReader(new InputStreamReader(System.in));
 	}
 
+	/**
+	 * CPUが使う駒
+	 */
+	Piece getCpuPiece() {
+		return cpuPiece;
+	}
+
+	/**
+	 * 対局の手順をジャーナルに追記するようにする。
+	 * @param journal 追記先
+	 * @param resumedGame 再開する対局（新しく始める場合はnull）
+	 */
+	void setJournal(GameJournal journal, GameJournal.Game resumedGame) {
+		this.journal = journal;
+		this.resumedGame = resumedGame;
+	}
+
 	/**
 	 * 盤面オブジェクトの作成処理
 	 * @param squareCount 縦と横のマス数：4以上の偶数（奇数の場合は-1されます）
@@ -51,7 +84,7 @@ public class GameManager {
 			printAlert(String.format("マスは偶数である必要があるため、%sマスで盤面を作成します。", --squareCount));
 		}
 		this.squareCount = squareCount;
-		return new Board(this.squareCount);
+		return Board.create(this.squareCount);
 	}
 
 	/**
@@ -103,7 +136,7 @@ public class GameManager {
 		print("*****************************************************************");
 		StringBuffer startMessage = new StringBuffer()
 				.append(number + "×" + number + "のオセロゲームを開始します。")
-				.append("あなたは" + PLAYER_PIECE.getState() + "番です。");
+				.append("あなたは" + playerPiece.getState() + "番です。");
 		print(startMessage.toString());
 		print("*****************************************************************");
 		sleep(2000);
@@ -115,97 +148,120 @@ public class GameManager {
 	 * @param autoMode 自動モードの有効/無効
 	 */
 	void startGame(Board board, boolean autoMode) {
+		startGame(board, autoMode, Piece.BLACK);
+	}
+
+	/**
+	 * 途中の局面からのゲーム開始処理
+	 * @param board 初期化済み（または途中まで進めた）盤面オブジェクト
+	 * @param autoMode 自動モードの有効/無効
+	 * @param sideToMove 手番の駒
+	 */
+	void startGame(Board board, boolean autoMode, Piece sideToMove) {
 
 		// 自動進行モードの初期化
-		ConsolePrinter.autoMode = autoMode;
 		enableAutoMode = autoMode;
 
-		// 両方ともパスだった場合はゲームを終了するためのフラグ。
-		boolean passFlg = false;
-
-		// 先手は黒番である為、初期値で調整する。
-		int zeroOrOne = PLAYER_PIECE.is(Piece.WHITE) ? 0 : 1;
+		// 出力は出来事として発行し、コンソールへの出力は購読者のスレッドで行う（出力の遅れで対局を止めない）。
+		GameEventBus bus = new GameEventBus();
+		StatsEventSink stats;
+		// 棋譜の書き出し先（記録しない場合はnull）
+		GameRecordWriter recordWriter = openRecordWriter();
+		try {
+			bus.subscribe("console", new ConsoleEventSink(autoMode, renderer), GameEventBus.capacityFromProperties(),
+					GameEventBus.policyFromProperties(GameEventBus.Policy.BLOCK));
+			stats = bus.subscribeFromProperties(GameEventBus.Policy.BLOCK);
+
+			// 対局の状態は対局ごとのセッションで管理する。
+			GameOutput output = new EventBusOutput(bus, 0, true);
+			if (recordWriter != null) {
+				output = resumedGame != null
+						? new RecordingOutput(output, recordWriter, resumedGame.getRecord())
+						: new RecordingOutput(output, recordWriter, board, Piece.BLACK);
+			}
+			if (journal != null) {
+				output = new JournalOutput(output, resumedGame != null ? resumedGame : journal.start(board, Piece.BLACK));
+				resumedGame = null;
+			}
+			GameSession session = new GameSession(board, players[0], players[1], output, autoMode, sideToMove);
+			if (session.isOver()) {
+				// 再開した局面で既に双方が置けない場合
+				output.printGameOver(board);
+			}
 
-		// ゲームが終了する -> break 制御とする。
-		while (true) {
-			int columnNumber;
-			int rowNumber;
-
-			// Loopごとに0 -> 1 -> 0 -> 1... のようになる。(XOR)
-			zeroOrOne = zeroOrOne ^ 1;
-			Player player = players[zeroOrOne];
-
-			boolean needsSkip = board.needsSkip(player);
-			if (passFlg && needsSkip) {
-				// プレイヤー双方がパスだった場合はゲームを終了する。
-				print("【ゲーム終了】置けるところがないので、ゲームを終了します。");
-				break;
-			} else if (passFlg = needsSkip) {
-				// 置けるところがない場合はSKIP(elseが正常処理）
-				print(String.format("【%s：パス】置けるところがないので、順番をスキップします。", player.getName()));
-			} else {
-				// 正常処理
-				Piece piece = player.getPiece();
-				while (true) {
-					if (enableAutoMode || player.getAutoPlay()) {
-						// 列と行の乱数取得
-						columnNumber = getRandomNum(squareCount);
-						rowNumber = getRandomNum(squareCount);
-					} else {
-						// 列と行の入力要求
-						columnNumber = getInputColumnNumber(reader);
-						rowNumber = getInputRowNumber(reader);
-					}
-
-					// 全角文字などを複数回入力した場合などの考慮
-					if (columnNumber >= squareCount || rowNumber >= squareCount) {
-						printAlert("入力数値が不正のため、もう一度列と行番号を指定してください。");
-						continue;
-					}
-
-					// 指定箇所が空いているかチェック
-					if (!board.squareIsEmpty(columnNumber, rowNumber)) {
-						var notEmptyMessage = String.format("「%d列の%d行目」は%sではないので、配置できません。",
-								columnNumber, rowNumber, Piece.EMPTY.getState());
-						if (!player.getAutoPlay()) {
-							printAlert(notEmptyMessage);
-						}
-						continue;
-					}
-
-					// 該当箇所が配置可かチェック
-					if (!board.isSelectable(columnNumber, rowNumber, piece)) {
-						var notSelectableMessage = String.format("「%d列の%d行目」は、配置できません。",
-								columnNumber, rowNumber);
-						if (!player.getAutoPlay()) {
-							printAlert(notSelectableMessage);
-						}
-						continue;
-					}
-					break;
+			// ゲームが終了する -> break 制御とする。
+			while (!session.isOver()) {
+				if (session.isAutomatic()) {
+					// 着手可能なマスの中から選ぶので、入力チェックは不要
+					session.playAutomatically();
+				} else {
+					// 配置できるマスが指定されるまで、列と行の入力要求を繰り返す。
+					do {
+						// 盤面や警告を出力し終えてから入力を求める。
+						awaitOutput(bus);
+					} while (!session.play(getInputColumnNumber(reader), getInputRowNumber(reader)));
 				}
-				Piece tmpPiece = player.getPiece();
-				// 配置する
-				board.putPiece(columnNumber, rowNumber, tmpPiece);
-				// ひっくり返す
-				board.turnOver(columnNumber, rowNumber, tmpPiece);
-				if (player.getAutoPlay()) {
-					printInfo(String.format("[%s]が[%s列の%s行]に%sを配置しました。",
-							player.getName(), columnNumber, rowNumber, tmpPiece.getDisp()));
-				}
-				// 盤面を表示する
-				board.displayInfo();
-			}
-			// 間をあける
-			sleep(1000);
-			// 終了判定
-			if (board.isFull()) {
-				print("【ゲーム終了】ゲームを終了します。");
-				break;
+				// 間をあける
+				sleep(1000);
 			}
+		} finally {
+			// 残っている出力を全て出し終えてから終了する。
+			bus.close();
+			closeRecordWriter(recordWriter);
+		}
+		if (stats != null) {
+			stats.print();
 		}
 	}
 
+	/**
+	 * 棋譜ファイルを追記用に開く。<br>
+	 * ファイルはシステムプロパティ othello.record で指定します（省略時は記録しない）。
+	 * @return 棋譜の書き出し先（記録しない場合や開けない場合はnull）
+	 */
+	private GameRecordWriter openRecordWriter() {
+		String path = System.getProperty("othello.record");
+		if (path == null) {
+			return null;
+		}
+		try {
+			return GameRecordWriter.open(Paths.get(path), true);
+		} catch (IOException e) {
+			printAlert("棋譜ファイルを開けないため、棋譜を記録せずに進めます。" + e.getMessage());
+			return null;
+		}
+	}
+
+	private void closeRecordWriter(GameRecordWriter writer) {
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.close();
+		} catch (IOException e) {
+			printAlert("棋譜ファイルを書き込めませんでした。" + e.getMessage());
+		}
+	}
+
+	/**
+	 * 発行済みの出力が全て出力されるまで待つ。
+	 */
+	private void awaitOutput(GameEventBus bus) {
+		try {
+			bus.awaitIdle();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 盤面を表示する（描画間隔に関わらず表示する）。
+	 * @param board 盤面オブジェクト
+	 */
+	void displayBoard(Board board) {
+		renderer.render(board, true);
+	}
+
 	/**
 	 * ゲーム終了処理
 	 * @param board
@@ -269,10 +325,12 @@ public class GameManager {
 
 	/**
 	 * プレイヤー情報の取得
+	 * @param playerPiece プレイヤーが使う駒
+	 * @param book CPUが使う定石集（使わない場合はnull）
 	 * @return [0] プレイヤー情報、[1] CPU情報
 	 */
-	private static Player[] getPlayers() {
-		PlayerManager pm = new PlayerManager();
+	private static Player[] getPlayers(Piece playerPiece, OpeningBook book) {
+		PlayerManager pm = new PlayerManager(playerPiece, book);
 		return new Player[] { pm.getPlayer(), pm.getCpu() };
 	}
 
@@ -287,15 +345,15 @@ public class GameManager {
 
 		for (Piece[] pieces : board.getBoard()) {
 			for (Piece piece : pieces) {
-				if (piece.is(PLAYER_PIECE)) {
+				if (piece.is(playerPiece)) {
 					playerScore++;
-				} else if (piece.is(CPU_PIECE)) {
+				} else if (piece.is(cpuPiece)) {
 					cpuScore++;
 				}
 			}
 		}
-		print(String.format("[%s：%s][%s枚]", players[0].getName(), PLAYER_PIECE.getState(), playerScore));
-		print(String.format("[%s：%s][%s枚]", players[1].getName(), CPU_PIECE.getState(), cpuScore));
+		print(String.format("[%s：%s][%s枚]", players[0].getName(), playerPiece.getState(), playerScore));
+		print(String.format("[%s：%s][%s枚]", players[1].getName(), cpuPiece.getState(), cpuScore));
 		if (playerScore == cpuScore) {
 			ConsolePrinter.changeTextColorToBlue(() -> print("引き分けです。"));
 			return;
@@ -308,7 +366,7 @@ public class GameManager {
 	/**
 	 * スレッド処理を一時的に休止する処理
 	 */
-	private static void sleep(int milliSec) {
+	private void sleep(int milliSec) {
 		int stopMilliSec = milliSec;
 		if (enableAutoMode) {
 			// 自動進行モードが有効の場合は間の秒数を短くする。
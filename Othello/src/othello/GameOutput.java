@@ -0,0 +1,73 @@
+package othello;
+
+/**
+ * 対局の経過の出力先。<br>
+ * 対局ごとに別の出力先を持たせることで、複数の対局を同時に進めても出力が混ざらないようにします。
+ */
+public interface GameOutput {
+
+	// 何も出力しない出力先
+	GameOutput NONE = new GameOutput() {
+		@Override
+		public void print(String msg) {
+		}
+
+		@Override
+		public void printInfo(String msg) {
+		}
+
+		@Override
+		public void printAlert(String msg) {
+		}
+
+		@Override
+		public void printBoard(Board board) {
+		}
+	};
+
+	/**
+	 * 引数の文字列を出力する。
+	 */
+	void print(String msg);
+
+	/**
+	 * 情報として引数の文字列を出力する。
+	 */
+	void printInfo(String msg);
+
+	/**
+	 * 警告として引数の文字列を出力する。
+	 */
+	void printAlert(String msg);
+
+	/**
+	 * 盤面を出力する。
+	 */
+	void printBoard(Board board);
+
+	/**
+	 * 着手を出力する（配置して裏返した後に呼び出す）。既定では何も出力しません。
+	 * @param board 着手後の盤面
+	 * @param piece 配置した駒
+	 * @param column 列のindex値
+	 * @param row 行のindex値
+	 * @param flips 裏返した駒の数
+	 */
+	default void printMove(Board board, Piece piece, int column, int row, int flips) {
+	}
+
+	/**
+	 * パスを出力する。既定では何も出力しません。
+	 * @param piece パスした駒
+	 */
+	default void printPass(Piece piece) {
+	}
+
+	/**
+	 * 終局を出力する。既定では何も出力しません。
+	 * @param board 最後の盤面
+	 */
+	default void printGameOver(Board board) {
+	}
+
+}
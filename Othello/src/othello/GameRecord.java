@@ -0,0 +1,163 @@
+package othello;
+
+import java.util.Arrays;
+
+/**
+ * 1局分の棋譜（マス数・先手・初期配置・手順）。<br>
+ * {@link GameRecordWriter} で書き出し、{@link GameRecordReader} で読み込みます。
+ * 読み込み時は同じオブジェクトを使い回せるよう、内容を初期化して再利用できます。<br>
+ * 手は「行番号 × マス数 + 列番号」の値で持ち、パスは {@link #PASS} で表します。
+ */
+final public class GameRecord {
+
+	// パスを表す手
+	static final int PASS = -1;
+
+	private int squareCount;
+	// 先手の駒
+	private Piece firstPiece;
+	// 初期配置で中央の対角線上に置く駒（{@link Board#init(Piece)}の引数）
+	private Piece diagonalPiece;
+	private int[] moves = new int[0];
+	private int moveCount;
+
+	GameRecord() {
+		reset(8, Piece.BLACK, Piece.WHITE);
+	}
+
+	/**
+	 * 手順を空にして、対局の条件を設定する。
+	 * @param squareCount 縦と横のマス数
+	 * @param firstPiece 先手の駒
+	 * @param diagonalPiece 初期配置で中央の対角線上に置く駒
+	 */
+	void reset(int squareCount, Piece firstPiece, Piece diagonalPiece) {
+		if (firstPiece.isEmpty() || diagonalPiece.isEmpty()) {
+			throw new IllegalArgumentException("先手と初期配置の駒には黒か白を指定してください。");
+		}
+		this.squareCount = squareCount;
+		this.firstPiece = firstPiece;
+		this.diagonalPiece = diagonalPiece;
+		this.moveCount = 0;
+	}
+
+	/**
+	 * 初期配置の盤面から対局の条件を設定する（手順は空にする）。
+	 * @param board 初期配置の盤面
+	 * @param firstPiece 先手の駒
+	 */
+	void reset(Board board, Piece firstPiece) {
+		int center = board.getSquareCount() / 2 - 1;
+		reset(board.getSquareCount(), firstPiece, board.getPiece(center, center));
+	}
+
+	/**
+	 * 別の棋譜の条件と手順を写す。
+	 * @param other 写し元の棋譜
+	 */
+	void copyFrom(GameRecord other) {
+		reset(other.squareCount, other.firstPiece, other.diagonalPiece);
+		moves = Arrays.copyOf(other.moves, Math.max(moves.length, other.moveCount));
+		moveCount = other.moveCount;
+	}
+
+	/**
+	 * 着手を追加する。
+	 * @param square 配置したマス（「行番号 × マス数 + 列番号」の値）
+	 */
+	void addMove(int square) {
+		if (moveCount == moves.length) {
+			moves = Arrays.copyOf(moves, Math.max(64, moves.length * 2));
+		}
+		moves[moveCount++] = square;
+	}
+
+	/**
+	 * パスを追加する。
+	 */
+	void addPass() {
+		addMove(PASS);
+	}
+
+	int getSquareCount() {
+		return squareCount;
+	}
+
+	Piece getFirstPiece() {
+		return firstPiece;
+	}
+
+	Piece getDiagonalPiece() {
+		return diagonalPiece;
+	}
+
+	/**
+	 * パスを含む手数
+	 */
+	int getMoveCount() {
+		return moveCount;
+	}
+
+	/**
+	 * @param index 何手目か（0から）
+	 * @return 配置したマス（パスの場合は {@link #PASS}）
+	 */
+	int getMove(int index) {
+		return moves[index];
+	}
+
+	/**
+	 * 最後の手の次の手番の駒
+	 */
+	Piece getSideToMove() {
+		return moveCount % 2 == 0 ? firstPiece : firstPiece.opponent();
+	}
+
+	/**
+	 * 新しい盤面に棋譜の手順を最初から再現する。<br>
+	 * 8×8はビット演算の盤面、それ以外は2次元配列の盤面を使います
+	 * （着手可能なマスの索引を持つ盤面は、索引の更新の分だけ再現が遅くなるため）。
+	 * @param validate 各手が配置できるか（パスは置けるマスが無いか）を確かめる場合はtrue
+	 * @return 最後の手まで進めた盤面
+	 * @throws IllegalArgumentException validate がtrueで、手順が正しくない場合
+	 */
+	Board replay(boolean validate) {
+		return replay(squareCount == BitBoard.SIZE ? new BitBoard() : new Board(squareCount), validate);
+	}
+
+	/**
+	 * 指定した盤面に棋譜の手順を最初から再現する。
+	 * @param board 初期化前の新しい盤面（マス数が棋譜と同じもの）
+	 * @param validate 各手が配置できるか（パスは置けるマスが無いか）を確かめる場合はtrue
+	 * @return 最後の手まで進めた盤面（引数の盤面）
+	 * @throws IllegalArgumentException validate がtrueで、手順が正しくない場合
+	 */
+	Board replay(Board board, boolean validate) {
+		if (board.getSquareCount() != squareCount) {
+			throw new IllegalArgumentException("棋譜とマス数が異なる盤面です：" + board.getSquareCount());
+		}
+		board.init(diagonalPiece);
+		Piece piece = firstPiece;
+		for (int index = 0; index < moveCount; index++) {
+			int move = moves[index];
+			if (move == PASS) {
+				if (validate && board.legalMoveCount(piece) > 0) {
+					throw new IllegalArgumentException(String.format("%d手目：置けるマスがあるのにパスしています。", index + 1));
+				}
+			} else {
+				int column = move % squareCount;
+				int row = move / squareCount;
+				if (validate && (move < 0 || move >= squareCount * squareCount
+						|| !board.squareIsEmpty(column, row) || !board.isSelectable(column, row, piece))) {
+					throw new IllegalArgumentException(String.format("%d手目：「%d列の%d行目」には配置できません。",
+							index + 1, column, row));
+				}
+				board.putPiece(column, row, piece);
+				board.turnOver(column, row, piece);
+			}
+			piece = piece.opponent();
+		}
+		return board;
+	}
+
+}
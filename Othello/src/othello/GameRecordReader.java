@@ -0,0 +1,154 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * {@link GameRecordWriter} で書き出した棋譜ファイルを先頭から順に読み込む。<br>
+ * 読み込んだ棋譜は呼び出し元の {@link GameRecord} に上書きするため、棋譜ごとにオブジェクトを作成しません。<br>
+ * main では棋譜ファイルの全対局を盤面に再現し、件数・勝敗・速度を出力します。<br>
+ * 引数：棋譜ファイル [手順を確かめる(true/false)]（省略時は false）
+ */
+public class GameRecordReader implements Closeable {
+
+	private final InputStream in;
+	private final byte[] buffer;
+	private int position;
+	private int limit;
+
+	/**
+	 * @param in 読み込み元（ヘッダーの後から読み込む）
+	 * @param bufferSize バッファのバイト数
+	 */
+	GameRecordReader(InputStream in, int bufferSize) {
+		this.in = in;
+		this.buffer = new byte[bufferSize];
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path path = Paths.get(args[0]);
+		boolean validate = args.length > 1 && Boolean.parseBoolean(args[1]);
+		GameRecord record = new GameRecord();
+		long games = 0;
+		long moves = 0;
+		long blackWins = 0;
+		long whiteWins = 0;
+		long start = System.nanoTime();
+		try (GameRecordReader reader = open(path)) {
+			while (reader.next(record)) {
+				Board board = record.replay(validate);
+				int difference = board.count(Piece.BLACK) - board.count(Piece.WHITE);
+				games++;
+				moves += record.getMoveCount();
+				if (difference > 0) {
+					blackWins++;
+				} else if (difference < 0) {
+					whiteWins++;
+				}
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		print(String.format("%d局・%d手（%dバイト、1局平均%.1fバイト）", games, moves, Files.size(path),
+				games == 0 ? 0.0 : (double) (Files.size(path) - GameRecordWriter.HEADER_BYTES) / games));
+		print(String.format("黒%d勝・白%d勝・引き分け%d", blackWins, whiteWins, games - blackWins - whiteWins));
+		print(String.format("時間：%d ms（%.1f局/秒）", elapsed / 1_000_000, games * 1_000_000_000.0 / Math.max(1, elapsed)));
+	}
+
+	/**
+	 * 棋譜ファイルを開く。
+	 * @param path ファイルのパス
+	 * @return 読み込み元
+	 * @throws IOException ファイルが読めない場合や形式が不正な場合
+	 */
+	static GameRecordReader open(Path path) throws IOException {
+		InputStream in = Files.newInputStream(path);
+		try {
+			readHeader(in, path);
+			return new GameRecordReader(in, 1 << 16);
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * ヘッダーを読み込み、識別子とバージョンを確かめる。
+	 */
+	static void readHeader(InputStream in, Path path) throws IOException {
+		byte[] header = in.readNBytes(GameRecordWriter.HEADER_BYTES);
+		if (header.length < GameRecordWriter.HEADER_BYTES || readInt(header, 0) != GameRecordWriter.MAGIC
+				|| readInt(header, 4) != GameRecordWriter.VERSION) {
+			throw new IOException("棋譜ファイルの形式が不正です：" + path);
+		}
+	}
+
+	/**
+	 * 次の棋譜を読み込む。
+	 * @param record 読み込み先
+	 * @return 読み込んだ場合はtrue、ファイルの終わりに達した場合はfalse
+	 * @throws IOException 読めない場合や、棋譜が途中で切れている場合
+	 */
+	boolean next(GameRecord record) throws IOException {
+		if (position == limit && !fill()) {
+			return false;
+		}
+		int flags = buffer[position++] & 0xff;
+		int squareCount = flags & GameRecordWriter.SQUARE_COUNT_MASK;
+		record.reset(squareCount, (flags & GameRecordWriter.WHITE_FIRST) != 0 ? Piece.WHITE : Piece.BLACK,
+				(flags & GameRecordWriter.BLACK_DIAGONAL) != 0 ? Piece.BLACK : Piece.WHITE);
+		int moveCount = 0;
+		for (int shift = 0; ; shift += 7) {
+			int value = readByte();
+			moveCount |= (value & 0x7f) << shift;
+			if (value < 0x80) {
+				break;
+			}
+		}
+		boolean wide = squareCount > GameRecordWriter.MAX_SQUARE_COUNT_FOR_BYTE;
+		int passSquare = GameRecordWriter.passSquare(squareCount);
+		for (int index = 0; index < moveCount; index++) {
+			int value = readByte();
+			if (wide) {
+				value = value << 8 | readByte();
+			}
+			record.addMove(value == passSquare ? GameRecord.PASS : value);
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private int readByte() throws IOException {
+		if (position == limit && !fill()) {
+			throw new EOFException("棋譜が途中で切れています。");
+		}
+		return buffer[position++] & 0xff;
+	}
+
+	/**
+	 * バッファを読み込む。
+	 * @return 読み込めた場合はtrue、ファイルの終わりに達した場合はfalse
+	 */
+	private boolean fill() throws IOException {
+		int read = in.read(buffer, 0, buffer.length);
+		position = 0;
+		limit = Math.max(0, read);
+		return read > 0;
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 | (bytes[offset + 2] & 0xff) << 8
+				| bytes[offset + 3] & 0xff;
+	}
+
+}
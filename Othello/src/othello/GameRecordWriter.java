@@ -0,0 +1,174 @@
+package othello;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 棋譜をバイナリ形式で書き出す。<br>
+ * 棋譜は内部のバッファに直接組み立て、バッファが一杯になった時にまとめて書き出します。
+ * 書き出しは複数のスレッドから呼び出せます（1局分ずつまとめて書き込むため、棋譜が混ざることはありません）。<br>
+ * ファイル形式：
+ * <pre>
+ * ヘッダー：識別子(int、ビッグエンディアン) バージョン(int、ビッグエンディアン)
+ * 棋譜　　：条件(1バイト) 手数(可変長) 手 …
+ *   条件　　下位6ビットがマス数、0x40 は白が先手、0x80 は初期配置の対角線上が黒
+ *   手数　　パスを含む手数（下位7ビットずつ、続きがある場合は 0x80 を立てる）
+ *   手　　　「行番号 × マス数 + 列番号」の値。16×16以下は1バイト、それより大きい場合は2バイト（ビッグエンディアン）
+ * </pre>
+ * パスは、初期配置で埋まっているため着手には現れない中央のマス（左上側）の値で表します。
+ * 8×8の1局はおよそ62バイトです。
+ */
+public class GameRecordWriter implements Closeable, Flushable {
+
+	// ファイルの識別子（"OGR1"）
+	static final int MAGIC = 0x4f475231;
+	// ファイル形式のバージョン
+	static final int VERSION = 1;
+	// ヘッダーのバイト数
+	static final int HEADER_BYTES = 8;
+	// 1バイトで手を表せる最大のマス数
+	static final int MAX_SQUARE_COUNT_FOR_BYTE = 16;
+	// 書き込める最大のマス数（条件の下位6ビットに収まる数）
+	static final int MAX_SQUARE_COUNT = 63;
+	// 条件のビット
+	static final int SQUARE_COUNT_MASK = 0x3f;
+	static final int WHITE_FIRST = 0x40;
+	static final int BLACK_DIAGONAL = 0x80;
+
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int position;
+	// 書き出した棋譜の数
+	private long games;
+
+	/**
+	 * @param out 書き出し先（ヘッダーは書き出さない）
+	 * @param bufferSize バッファのバイト数
+	 */
+	GameRecordWriter(OutputStream out, int bufferSize) {
+		this.out = out;
+		this.buffer = new byte[bufferSize];
+	}
+
+	/**
+	 * 棋譜ファイルを開く。
+	 * @param path ファイルのパス
+	 * @param append 既存のファイルの末尾に追加する場合はtrue（ファイルが無いか空の場合は新規に作成する）
+	 * @return 書き出し先
+	 * @throws IOException ファイルが書けない場合や、追加先の形式が不正な場合
+	 */
+	static GameRecordWriter open(Path path, boolean append) throws IOException {
+		boolean hasHeader = false;
+		if (append && Files.isRegularFile(path) && Files.size(path) > 0) {
+			try (InputStream in = Files.newInputStream(path)) {
+				GameRecordReader.readHeader(in, path);
+			}
+			hasHeader = true;
+		}
+		OutputStream out = append
+				? Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+				: Files.newOutputStream(path);
+		GameRecordWriter writer = new GameRecordWriter(out, 1 << 16);
+		if (!hasHeader) {
+			writer.writeInt(MAGIC);
+			writer.writeInt(VERSION);
+		}
+		return writer;
+	}
+
+	/**
+	 * 1局分の棋譜をバッファに書き込む（バッファが一杯の場合は先に書き出す）。
+	 * @param record 棋譜
+	 */
+	synchronized void write(GameRecord record) throws IOException {
+		int squareCount = record.getSquareCount();
+		if (squareCount < 4 || squareCount > MAX_SQUARE_COUNT) {
+			throw new IllegalArgumentException("書き込めないマス数です：" + squareCount);
+		}
+		int moveCount = record.getMoveCount();
+		int width = squareCount <= MAX_SQUARE_COUNT_FOR_BYTE ? 1 : 2;
+		int size = 1 + 5 + moveCount * width;
+		if (size > buffer.length - position) {
+			flushBuffer();
+			if (size > buffer.length) {
+				throw new IllegalArgumentException("バッファに収まらない棋譜です：" + moveCount + "手");
+			}
+		}
+		int flags = squareCount;
+		if (record.getFirstPiece().is(Piece.WHITE)) {
+			flags |= WHITE_FIRST;
+		}
+		if (record.getDiagonalPiece().is(Piece.BLACK)) {
+			flags |= BLACK_DIAGONAL;
+		}
+		buffer[position++] = (byte) flags;
+		for (int value = moveCount; ; value >>>= 7) {
+			if (value < 0x80) {
+				buffer[position++] = (byte) value;
+				break;
+			}
+			buffer[position++] = (byte) (value & 0x7f | 0x80);
+		}
+		int passSquare = passSquare(squareCount);
+		for (int index = 0; index < moveCount; index++) {
+			int move = record.getMove(index);
+			int value = move == GameRecord.PASS ? passSquare : move;
+			if (width == 2) {
+				buffer[position++] = (byte) (value >>> 8);
+			}
+			buffer[position++] = (byte) value;
+		}
+		games++;
+	}
+
+	/**
+	 * パスを表す値（初期配置で埋まっている中央のマス）
+	 */
+	static int passSquare(int squareCount) {
+		int center = squareCount / 2 - 1;
+		return center * squareCount + center;
+	}
+
+	/**
+	 * 書き込んだ棋譜の数
+	 */
+	synchronized long getGameCount() {
+		return games;
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			flushBuffer();
+		} finally {
+			out.close();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (position > 0) {
+			out.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	private void writeInt(int value) {
+		buffer[position++] = (byte) (value >>> 24);
+		buffer[position++] = (byte) (value >>> 16);
+		buffer[position++] = (byte) (value >>> 8);
+		buffer[position++] = (byte) value;
+	}
+
+}
@@ -0,0 +1,354 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ローカルのTCPソケットで複数のクライアントを受け付け、クライアントごとにプレイヤー対CPUの対局を行うサーバー。<br>
+ * 各接続は仮想スレッド（利用できないJavaでは、スタックを小さくしたプラットフォームスレッド）で処理し、
+ * CPUの思考は上限付きのスレッドプールで行います。入力待ちの接続はCPUのスレッドを占有しません。<br>
+ * 引数：ポート番号 CPUの思考スレッド数 CPUの1手の思考時間(ms)（省略時は 5000 CPUコア数 1000）<br>
+ * プロトコル（UTF-8・1行1コマンド、応答は「OK …」または「ERR メッセージ」の1行）：
+ * <pre>
+ * NEW マス数 [black|white]  新しい対局を始める（プレイヤーの駒の省略時は黒）
+ * MOVE 列番号 行番号         プレイヤーの手を配置する
+ * PASS                       パスする（置けるマスがない場合のみ）
+ * BOARD                      盤面を取得する
+ * QUIT                       接続を終了する
+ * </pre>
+ * NEW・MOVE・PASS の応答は「OK 状態 CPUの手…」で、状態はプレイヤーの手番なら TURN、終局なら OVER、
+ * CPUの手は「列番号,行番号」を空白区切りで並べます。置けるところがない場合の手番のスキップは自動で行います。<br>
+ * BOARD の応答は「OK マス数 手番(B/W/-) 黒の駒数 白の駒数 盤面」で、盤面は行ごとに左から
+ * 空き「.」・黒「B」・白「W」を並べた文字列です。
+ */
+public class GameServer {
+
+	// 既定のポート番号
+	static final int DEFAULT_PORT = 5000;
+	// 接続待ちの上限数
+	private static final int BACKLOG = 1024;
+	// 仮想スレッドを利用できない場合の接続処理スレッドのスタックサイズ
+	private static final long FALLBACK_STACK_SIZE = 256 * 1024;
+	// CPUの思考に使う置換表の容量（MB、思考スレッドごと）
+	private static final int CPU_HASH_SIZE_MB = 16;
+
+	private final int port;
+	private final long thinkMillis;
+	// 接続ごとの処理を行うスレッド
+	private final ExecutorService sessionExecutor;
+	// CPUの思考を行うスレッド（上限付き）
+	private final ExecutorService cpuExecutor;
+	// 思考スレッドごとの思考ルーチン（置換表は思考スレッドごとに持ち、対局をまたいで使い回す）
+	private final ThreadLocal<SearchStrategy> cpuStrategy;
+
+	// 接続中のクライアント数
+	private final AtomicInteger connections = new AtomicInteger();
+	private volatile ServerSocket serverSocket;
+
+	/**
+	 * @param port ポート番号（0の場合は空いているポート）
+	 * @param cpuThreads CPUの思考スレッド数
+	 * @param thinkMillis CPUの1手の思考時間（ミリ秒）
+	 */
+	GameServer(int port, int cpuThreads, long thinkMillis) {
+		if (cpuThreads <= 0) {
+			throw new IllegalArgumentException("思考スレッド数は1以上を指定してください。");
+		}
+		this.port = port;
+		this.thinkMillis = thinkMillis;
+		this.sessionExecutor = newSessionExecutor();
+		this.cpuExecutor = Executors.newFixedThreadPool(cpuThreads, runnable -> {
+			Thread thread = new Thread(runnable, "othello-cpu");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.cpuStrategy = ThreadLocal.withInitial(() -> new SearchStrategy(thinkMillis, CPU_HASH_SIZE_MB, 1));
+	}
+
+	public static void main(String[] args) throws IOException {
+		GameServer server = new GameServer(
+				args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT,
+				args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors(),
+				args.length > 2 ? Long.parseLong(args[2]) : SearchStrategy.DEFAULT_TIME_LIMIT_MILLIS);
+		server.serve();
+	}
+
+	/**
+	 * 接続を受け付ける（{@link #close()}が呼ばれるまで戻らない）。
+	 */
+	void serve() throws IOException {
+		try (ServerSocket socket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress())) {
+			serverSocket = socket;
+			print(String.format("ポート%dで接続を待っています。（CPUの思考時間：%d ms）", socket.getLocalPort(), thinkMillis));
+			while (!socket.isClosed()) {
+				Socket client;
+				try {
+					client = socket.accept();
+				} catch (IOException e) {
+					if (socket.isClosed()) {
+						break;
+					}
+					throw e;
+				}
+				sessionExecutor.execute(() -> handle(client));
+			}
+		} finally {
+			sessionExecutor.shutdownNow();
+			cpuExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * 接続の受付を終了する。
+	 */
+	void close() throws IOException {
+		ServerSocket socket = serverSocket;
+		if (socket != null) {
+			socket.close();
+		}
+	}
+
+	/**
+	 * 待ち受けているポート番号（待ち受け前は-1）
+	 */
+	int getLocalPort() {
+		ServerSocket socket = serverSocket;
+		return socket == null ? -1 : socket.getLocalPort();
+	}
+
+	/**
+	 * 接続中のクライアント数
+	 */
+	int getConnectionCount() {
+		return connections.get();
+	}
+
+	/**
+	 * 1クライアント分のコマンドを接続が切れるまで処理する。
+	 */
+	private void handle(Socket client) {
+		connections.incrementAndGet();
+		try (Socket socket = client;
+				BufferedReader reader = new BufferedReader(
+						new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+				Writer writer = new BufferedWriter(
+						new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+			socket.setTcpNoDelay(true);
+			Connection connection = new Connection();
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String response = connection.execute(line.trim());
+				writer.write(response);
+				writer.write('\n');
+				writer.flush();
+				if (connection.closed) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			// 切断されたクライアントは破棄する。
+		} finally {
+			connections.decrementAndGet();
+		}
+	}
+
+	/**
+	 * 仮想スレッドで接続を処理する実行環境を作成する（仮想スレッドを利用できない場合は通常のスレッドを使う）。
+	 */
+	private static ExecutorService newSessionExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(null, runnable, "othello-session", FALLBACK_STACK_SIZE);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * 1クライアント分の状態。
+	 */
+	private final class Connection {
+
+		// 対局中のセッション（NEWの前はnull）
+		private GameSession session;
+		// 警告の出力先（配置できなかった理由を応答に使う）
+		private final AlertOutput output = new AlertOutput();
+		// QUITを受け付けたらtrue
+		private boolean closed;
+
+		String execute(String line) {
+			String[] tokens = line.split("\\s+");
+			try {
+				switch (tokens[0].toUpperCase()) {
+				case "NEW":
+					return newGame(tokens);
+				case "MOVE":
+					return move(tokens);
+				case "PASS":
+					return pass();
+				case "BOARD":
+					return board();
+				case "QUIT":
+					closed = true;
+					return "OK BYE";
+				default:
+					return "ERR 不明なコマンドです：" + tokens[0];
+				}
+			} catch (NumberFormatException e) {
+				return "ERR 数値を指定してください。";
+			} catch (RuntimeException e) {
+				// CPUの思考に失敗した場合なども、接続を切らずにエラーを応答する。
+				e.printStackTrace();
+				return "ERR " + (e.getMessage() != null ? e.getMessage() : e.toString());
+			}
+		}
+
+		private String newGame(String[] tokens) {
+			if (tokens.length < 2) {
+				return "ERR マス数を指定してください。";
+			}
+			int squareCount = Integer.parseInt(tokens[1]);
+			if (squareCount < 4 || squareCount > 50 || squareCount % 2 == 1) {
+				return "ERR マス数は4以上50以下の偶数を指定してください。";
+			}
+			Piece playerPiece;
+			if (tokens.length < 3 || tokens[2].equalsIgnoreCase("black")) {
+				playerPiece = Piece.BLACK;
+			} else if (tokens[2].equalsIgnoreCase("white")) {
+				playerPiece = Piece.WHITE;
+			} else {
+				return "ERR 駒は black または white を指定してください。";
+			}
+			Board board = Board.create(squareCount);
+			board.init();
+			Player player = new Player("プレイヤー", playerPiece, false);
+			Player cpu = new Player("コンピューター", playerPiece.opponent(), true, this::think);
+			session = new GameSession(board, player, cpu, output);
+			return respond(new StringBuilder());
+		}
+
+		private String move(String[] tokens) {
+			if (!isPlayerTurn()) {
+				return session == null ? "ERR 対局が始まっていません。" : "ERR 終局しています。";
+			}
+			if (tokens.length < 3) {
+				return "ERR 列番号と行番号を指定してください。";
+			}
+			if (!session.play(Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]))) {
+				return "ERR " + output.lastAlert;
+			}
+			return respond(new StringBuilder());
+		}
+
+		private String pass() {
+			if (!isPlayerTurn()) {
+				return session == null ? "ERR 対局が始まっていません。" : "ERR 終局しています。";
+			}
+			// 置けるところがない手番は自動でスキップするため、プレイヤーの手番では常に置けるマスがある。
+			return "ERR 置けるマスがあるため、パスできません。";
+		}
+
+		private String board() {
+			if (session == null) {
+				return "ERR 対局が始まっていません。";
+			}
+			Board board = session.getBoard();
+			int squareCount = board.getSquareCount();
+			StringBuilder response = new StringBuilder(squareCount * squareCount + 32)
+					.append("OK ").append(squareCount)
+					.append(' ').append(session.isOver() ? "-" : symbol(session.getSideToMove()))
+					.append(' ').append(board.count(Piece.BLACK))
+					.append(' ').append(board.count(Piece.WHITE))
+					.append(' ');
+			for (int row = 0; row < squareCount; row++) {
+				for (int column = 0; column < squareCount; column++) {
+					Piece piece = board.getPiece(column, row);
+					response.append(piece.isEmpty() ? "." : symbol(piece));
+				}
+			}
+			return response.toString();
+		}
+
+		/**
+		 * CPUの手番が続く限りCPUに着手させ、状態とCPUの手を応答する。
+		 */
+		private String respond(StringBuilder moves) {
+			int squareCount = session.getBoard().getSquareCount();
+			while (!session.isOver() && session.isAutomatic()) {
+				int move = session.playAutomatically();
+				moves.append(' ').append(move % squareCount).append(',').append(move / squareCount);
+			}
+			return (session.isOver() ? "OK OVER" : "OK TURN") + moves;
+		}
+
+		private boolean isPlayerTurn() {
+			return session != null && !session.isOver() && !session.isAutomatic();
+		}
+
+		/**
+		 * CPUの思考を思考スレッドで行い、結果を待つ。
+		 */
+		private int think(Board board, Piece piece) {
+			Future<Integer> future = cpuExecutor.submit(() -> cpuStrategy.get().selectMove(board, piece));
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				future.cancel(true);
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("CPUの思考が中断されました。", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("CPUの思考中にエラーが発生しました。", e.getCause());
+			}
+		}
+
+		private String symbol(Piece piece) {
+			return piece.is(Piece.BLACK) ? "B" : "W";
+		}
+	}
+
+	/**
+	 * 最後の警告だけを保持する出力先。
+	 */
+	private static final class AlertOutput implements GameOutput {
+
+		private String lastAlert = "";
+
+		@Override
+		public void print(String msg) {
+		}
+
+		@Override
+		public void printInfo(String msg) {
+		}
+
+		@Override
+		public void printAlert(String msg) {
+			lastAlert = msg;
+		}
+
+		@Override
+		public void printBoard(Board board) {
+		}
+	}
+
+}
@@ -0,0 +1,202 @@
+package othello;
+
+/**
+ * 1局分の状態（盤面・プレイヤー・手番・出力先）を持ち、対局を1手ずつ進めるクラス。<br>
+ * static な状態を参照しないため、複数の対局を別々のスレッドで同時に進められます。<br>
+ * 置けるところがない手番は自動でパスし、双方が置けなくなるか盤面が埋まった時点で終局します。
+ */
+public class GameSession {
+
+	// 盤面
+	private final Board board;
+	// [0] 黒番のプレイヤー、[1] 白番のプレイヤー
+	private final Player[] players = new Player[2];
+	// 出力先
+	private final GameOutput output;
+	// 自動進行モード（全プレイヤーを思考ルーチンで進める）の有効/無効
+	private final boolean autoMode;
+
+	// 手番の駒（先手は黒番）
+	private Piece sideToMove = Piece.BLACK;
+	// 終局したらtrue
+	private boolean over;
+
+	GameSession(Board board, Player first, Player second, GameOutput output) {
+		this(board, first, second, output, false);
+	}
+
+	/**
+	 * @param board 初期化済みの盤面オブジェクト
+	 * @param first プレイヤー（黒番と白番のどちらでもよい）
+	 * @param second もう一方のプレイヤー
+	 * @param output 出力先
+	 * @param autoMode 自動進行モードの有効/無効
+	 */
+	GameSession(Board board, Player first, Player second, GameOutput output, boolean autoMode) {
+		this(board, first, second, output, autoMode, Piece.BLACK);
+	}
+
+	/**
+	 * 途中の局面から対局を再開する。<br>
+	 * 手番側が置けない場合はパスした状態から、双方が置けない場合は終局した状態から始めます（出力はしません）。
+	 * @param board 途中まで進めた盤面オブジェクト
+	 * @param first プレイヤー（黒番と白番のどちらでもよい）
+	 * @param second もう一方のプレイヤー
+	 * @param output 出力先
+	 * @param autoMode 自動進行モードの有効/無効
+	 * @param sideToMove 手番の駒
+	 */
+	GameSession(Board board, Player first, Player second, GameOutput output, boolean autoMode, Piece sideToMove) {
+		if (first.getPiece().isEmpty() || second.getPiece() != first.getPiece().opponent()) {
+			throw new IllegalArgumentException("プレイヤーには黒と白を1人ずつ割り当ててください。");
+		}
+		this.board = board;
+		this.players[indexOf(first.getPiece())] = first;
+		this.players[indexOf(second.getPiece())] = second;
+		this.output = output;
+		this.autoMode = autoMode;
+		this.sideToMove = sideToMove;
+		if (board.isFull() || board.needsSkip(getCurrentPlayer())) {
+			if (board.isFull() || board.needsSkip(getPlayer(sideToMove.opponent()))) {
+				over = true;
+			} else {
+				this.sideToMove = sideToMove.opponent();
+			}
+		}
+	}
+
+	/**
+	 * 手番のプレイヤーの思考ルーチンで着手する。
+	 * @return 配置したマス（「行番号 × マス数 + 列番号」の値）
+	 */
+	int playAutomatically() {
+		Player player = getCurrentPlayer();
+		int move = player.getStrategy().selectMove(board, sideToMove);
+		int squareCount = board.getSquareCount();
+		if (!play(move % squareCount, move / squareCount)) {
+			throw new IllegalStateException(String.format("[%s]の思考ルーチンが配置できないマスを選びました。", player.getName()));
+		}
+		return move;
+	}
+
+	/**
+	 * 手番のプレイヤーとして指定したマスに配置する。<br>
+	 * 配置できない場合は警告を出力し、手番は変わりません。
+	 * @param column 列のindex値
+	 * @param row 行のindex値
+	 * @return 配置できた場合はtrue
+	 */
+	boolean play(int column, int row) {
+		if (over) {
+			throw new IllegalStateException("ゲームは終了しています。");
+		}
+		Player player = getCurrentPlayer();
+		int squareCount = board.getSquareCount();
+
+		// 全角文字などを複数回入力した場合などの考慮
+		if (column < 0 || row < 0 || column >= squareCount || row >= squareCount) {
+			output.printAlert("入力数値が不正のため、もう一度列と行番号を指定してください。");
+			return false;
+		}
+
+		// 指定箇所が空いているかチェック
+		if (!board.squareIsEmpty(column, row)) {
+			output.printAlert(String.format("「%d列の%d行目」は%sではないので、配置できません。",
+					column, row, Piece.EMPTY.getState()));
+			return false;
+		}
+
+		// 該当箇所が配置可かチェック
+		if (!board.isSelectable(column, row, sideToMove)) {
+			output.printAlert(String.format("「%d列の%d行目」は、配置できません。", column, row));
+			return false;
+		}
+
+		// 裏返す駒の数（配置前に数える）
+		int flips = board.flipCount(column, row, sideToMove);
+		// 配置する
+		board.putPiece(column, row, sideToMove);
+		// ひっくり返す
+		board.turnOver(column, row, sideToMove);
+		if (player.getAutoPlay()) {
+			output.printInfo(String.format("[%s]が[%s列の%s行]に%sを配置しました。",
+					player.getName(), column, row, sideToMove.getDisp()));
+		}
+		output.printMove(board, sideToMove, column, row, flips);
+		// 盤面を表示する
+		output.printBoard(board);
+
+		advance();
+		return true;
+	}
+
+	/**
+	 * 手番を進める（相手が置けない場合はパスし、双方が置けない場合は終局とする）。
+	 */
+	private void advance() {
+		// 終了判定
+		if (board.isFull()) {
+			output.print("【ゲーム終了】ゲームを終了します。");
+			over = true;
+			output.printGameOver(board);
+			return;
+		}
+		Player next = getPlayer(sideToMove.opponent());
+		if (board.needsSkip(next)) {
+			if (board.needsSkip(getCurrentPlayer())) {
+				// プレイヤー双方がパスだった場合はゲームを終了する。
+				output.print("【ゲーム終了】置けるところがないので、ゲームを終了します。");
+				over = true;
+				output.printGameOver(board);
+				return;
+			}
+			// 置けるところがない場合はSKIP
+			output.print(String.format("【%s：パス】置けるところがないので、順番をスキップします。", next.getName()));
+			output.printPass(next.getPiece());
+			return;
+		}
+		sideToMove = next.getPiece();
+	}
+
+	/**
+	 * 手番のプレイヤーを思考ルーチンで進めるかどうか
+	 * @return 自動進行モードか、手番のプレイヤーが自動で配置する場合はtrue
+	 */
+	boolean isAutomatic() {
+		return autoMode || getCurrentPlayer().getAutoPlay();
+	}
+
+	boolean isOver() {
+		return over;
+	}
+
+	Board getBoard() {
+		return board;
+	}
+
+	Piece getSideToMove() {
+		return sideToMove;
+	}
+
+	Player getCurrentPlayer() {
+		return getPlayer(sideToMove);
+	}
+
+	/**
+	 * 駒に対応するプレイヤーを取得する。
+	 * @param piece 黒または白
+	 * @return プレイヤー
+	 */
+	Player getPlayer(Piece piece) {
+		return players[indexOf(piece)];
+	}
+
+	GameOutput getOutput() {
+		return output;
+	}
+
+	private static int indexOf(Piece piece) {
+		return piece.is(Piece.BLACK) ? 0 : 1;
+	}
+
+}
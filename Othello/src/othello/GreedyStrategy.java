@@ -0,0 +1,51 @@
+package othello;
+
+import java.util.Random;
+
+/**
+ * 裏返せる駒が最も多いマスを選ぶ思考ルーチン（同数のマスが複数ある場合はランダムに選ぶ）。
+ */
+public class GreedyStrategy implements Strategy {
+
+	// 乱数生成器
+	private final Random random;
+	// 着手可能なマスの格納先
+	private int[] moveBuffer = new int[0];
+
+	GreedyStrategy() {
+		this(new Random());
+	}
+
+	/**
+	 * @param random 乱数生成器（シードを固定すると同じ手順を再現できます）
+	 */
+	GreedyStrategy(Random random) {
+		this.random = random;
+	}
+
+	@Override
+	public int selectMove(Board board, Piece piece) {
+		int squareCount = board.getSquareCount();
+		if (moveBuffer.length < squareCount * squareCount) {
+			moveBuffer = new int[squareCount * squareCount];
+		}
+		int count = board.legalMoves(piece, moveBuffer);
+		int bestMove = moveBuffer[0];
+		int bestFlips = -1;
+		int ties = 0;
+		for (int index = 0; index < count; index++) {
+			int move = moveBuffer[index];
+			int flips = board.flipCount(move % squareCount, move / squareCount, piece);
+			if (flips > bestFlips) {
+				bestFlips = flips;
+				bestMove = move;
+				ties = 1;
+			} else if (flips == bestFlips && random.nextInt(++ties) == 0) {
+				// 同数のマスからは等確率で選ぶ。
+				bestMove = move;
+			}
+		}
+		return bestMove;
+	}
+
+}
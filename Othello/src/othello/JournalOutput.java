@@ -0,0 +1,60 @@
+package othello;
+
+/**
+ * 出力を別の出力先に渡しつつ、着手・パス・終局を {@link GameJournal} に追記する出力先。
+ */
+public class JournalOutput implements GameOutput {
+
+	// 出力を渡す先
+	private final GameOutput delegate;
+	// 追記先の対局
+	private final GameJournal.Game game;
+
+	/**
+	 * @param delegate 出力を渡す先
+	 * @param game 追記先の対局（開始済みのもの、または再開したもの）
+	 */
+	JournalOutput(GameOutput delegate, GameJournal.Game game) {
+		this.delegate = delegate;
+		this.game = game;
+	}
+
+	@Override
+	public void print(String msg) {
+		delegate.print(msg);
+	}
+
+	@Override
+	public void printInfo(String msg) {
+		delegate.printInfo(msg);
+	}
+
+	@Override
+	public void printAlert(String msg) {
+		delegate.printAlert(msg);
+	}
+
+	@Override
+	public void printBoard(Board board) {
+		delegate.printBoard(board);
+	}
+
+	@Override
+	public void printMove(Board board, Piece piece, int column, int row, int flips) {
+		game.move(row * board.getSquareCount() + column);
+		delegate.printMove(board, piece, column, row, flips);
+	}
+
+	@Override
+	public void printPass(Piece piece) {
+		game.pass();
+		delegate.printPass(piece);
+	}
+
+	@Override
+	public void printGameOver(Board board) {
+		game.end();
+		delegate.printGameOver(board);
+	}
+
+}
@@ -0,0 +1,538 @@
+package othello;
+
+import java.util.Arrays;
+
+/**
+ * 盤面を番兵（盤外マス）付きの1次元配列で保持する盤面。<br>
+ * 4×4から50×50まで任意のマス数に対応します。<br>
+ * 着手可能判定の際に裏返る駒も同時に求めておき、
+ * 直後の{@link #turnOver(int, int, Piece)}ではその結果を再利用します。<br>
+ * 空きマス数・フロンティア（駒に隣接する空きマス）・手番ごとの着手可能マスは
+ * 駒の配置や裏返しのたびに変化したマスの周辺だけを更新して保持するため、
+ * パスの判定や終了判定は盤面を走査せずに行えます。
+ */
+public class MailboxBoard extends Board {
+
+	// マスの状態
+	static final byte EMPTY = 0;
+	static final byte BLACK = 1;
+	static final byte WHITE = 2;
+	static final byte WALL = 3;
+
+	// 番兵を含めた1行の幅
+	private final int width;
+	// 八方向のインデックス差分
+	private final int[] directions;
+	// 盤面（番兵を含む）
+	private final byte[] cells;
+
+	// 直近の判定で求めた裏返る駒の位置
+	private final int[] flipBuffer;
+	private int flipCount;
+	// flipBufferがどの判定結果か（マス位置、駒、盤面の更新回数）
+	private int cachedPos = -1;
+	private byte cachedColor;
+	private long cachedVersion;
+	// 盤面の更新回数
+	private long version;
+
+	// 空きマス数
+	private int emptyCount;
+	// 黒/白それぞれの駒数（添字は駒の値 - 1）
+	private final int[] discCounts = new int[2];
+	// 駒に隣接する空きマス
+	private final SquareSet frontier;
+	// 黒/白それぞれの着手可能マス（添字は駒の値 - 1）
+	private final SquareSet[] legalSquares;
+	// 着手可能かどうかを再判定する空きマス（重複はrefreshStampで除外する）
+	private final int[] refreshBuffer;
+	private int refreshCount;
+	private final int[] refreshStamp;
+	private int stamp;
+
+	/**
+	 * 渡された引数の正方形の盤面を作成します。
+	 */
+	MailboxBoard(int squareCount) {
+		// マスの状態は番兵付きの1次元配列で保持するため、基底クラスの駒の配列は作成しない。
+		super(squareCount, false);
+		this.width = squareCount + 2;
+		this.directions = new int[] {
+				-width - 1, -width, -width + 1,
+				-1, 1,
+				width - 1, width, width + 1 };
+		this.cells = new byte[width * width];
+		for (int index = 0; index < cells.length; index++) {
+			int column = index % width;
+			int row = index / width;
+			boolean isWall = column == 0 || row == 0 || column == width - 1 || row == width - 1;
+			cells[index] = isWall ? WALL : EMPTY;
+		}
+		// 1手で裏返る駒は、盤面の駒数を超えることはない。
+		this.flipBuffer = new int[squareCount * squareCount];
+
+		this.emptyCount = squareCount * squareCount;
+		this.frontier = new SquareSet(cells.length);
+		this.legalSquares = new SquareSet[] { new SquareSet(cells.length), new SquareSet(cells.length) };
+		this.refreshBuffer = new int[cells.length];
+		this.refreshStamp = new int[cells.length];
+	}
+
+	@Override
+	boolean squareIsEmpty(int column, int row) {
+		return cells[toPos(column, row)] == EMPTY;
+	}
+
+	@Override
+	Piece getPiece(int column, int row) {
+		return toPiece(cells[toPos(column, row)]);
+	}
+
+	@Override
+	boolean isSelectable(int column, int row, Piece piece) {
+		int pos = toPos(column, row);
+		if (cells[pos] != EMPTY) {
+			return false;
+		}
+		return findFlips(pos, toColor(piece)) > 0;
+	}
+
+	@Override
+	boolean canTurnOver(int column, int row, Piece opponentsPiece) {
+		return findFlips(toPos(column, row), toColor(opponentsPiece.opponent())) > 0;
+	}
+
+	@Override
+	void putPiece(int column, int row, Piece piece) {
+		int pos = toPos(column, row);
+		// 判定済みのマスへの配置は裏返る駒に影響しないので、判定結果を残しておく。
+		if (pos != cachedPos) {
+			version++;
+		}
+		byte color = toColor(piece);
+		byte before = cells[pos];
+		if (before == color) {
+			return;
+		}
+		changeHash(column, row, toPiece(before), piece);
+		cells[pos] = color;
+		if (before != EMPTY) {
+			discCounts[before - 1]--;
+		}
+		if (color != EMPTY) {
+			discCounts[color - 1]++;
+		}
+
+		if (before == EMPTY) {
+			// 空きマスが埋まった場合
+			emptyCount--;
+			frontier.remove(pos);
+			legalSquares[0].remove(pos);
+			legalSquares[1].remove(pos);
+			for (int direction : directions) {
+				if (cells[pos + direction] == EMPTY) {
+					frontier.add(pos + direction);
+				}
+			}
+		} else if (color == EMPTY) {
+			// 駒が取り除かれた場合
+			emptyCount++;
+			updateFrontier(pos);
+			for (int direction : directions) {
+				if (cells[pos + direction] == EMPTY) {
+					updateFrontier(pos + direction);
+				}
+			}
+			addRefresh(pos);
+		}
+		collectAffectedSquares(pos);
+		refreshLegalSquares();
+	}
+
+	@Override
+	void turnOver(int column, int row, Piece piece) {
+		int pos = toPos(column, row);
+		byte color = toColor(piece);
+		int count = findFlips(pos, color);
+		Piece opponent = piece.opponent();
+		for (int index = 0; index < count; index++) {
+			int flipped = flipBuffer[index];
+			cells[flipped] = color;
+			changeHash(flipped % width - 1, flipped / width - 1, opponent, piece);
+			collectAffectedSquares(flipped);
+		}
+		discCounts[color - 1] += count;
+		discCounts[BLACK + WHITE - color - 1] -= count;
+		version++;
+		refreshLegalSquares();
+	}
+
+	/**
+	 * 指定したマスに配置して裏返し、裏返したマスを取り消し用の記録に積む。<br>
+	 * 空きマス数・フロンティア・着手可能マスも{@link #putPiece}・{@link #turnOver}と同様に更新します。
+	 */
+	@Override
+	int makeMove(int column, int row, Piece piece) {
+		int pos = toPos(column, row);
+		int count = findFlips(pos, toColor(piece));
+		UndoStack stack = undoStack();
+		stack.push(pos, piece);
+		for (int index = 0; index < count; index++) {
+			stack.addFlip(flipBuffer[index]);
+		}
+		// 配置したマスの判定結果は残るので、turnOverでは裏返る駒を求め直さない。
+		putPiece(column, row, piece);
+		turnOver(column, row, piece);
+		return count;
+	}
+
+	@Override
+	void unmakeMove() {
+		UndoStack stack = undoStackToPop();
+		Piece piece = stack.piece();
+		Piece opponent = piece.opponent();
+		byte opponentColor = toColor(opponent);
+		int start = stack.flipStart();
+		int end = stack.flipEnd();
+		for (int index = start; index < end; index++) {
+			int flipped = stack.flip(index);
+			cells[flipped] = opponentColor;
+			changeHash(flipped % width - 1, flipped / width - 1, piece, opponent);
+			collectAffectedSquares(flipped);
+		}
+		discCounts[opponentColor - 1] += end - start;
+		discCounts[BLACK + WHITE - opponentColor - 1] -= end - start;
+		version++;
+		// 配置したマスを空きマスに戻す（着手可能マスの再判定もここでまとめて行う）。
+		int pos = stack.move();
+		putPiece(pos % width - 1, pos / width - 1, Piece.EMPTY);
+		stack.pop();
+	}
+
+	@Override
+	boolean needsSkip(Player player) {
+		byte color = toColor(player.getPiece());
+		return legalSquares[color - 1].size() == 0;
+	}
+
+	@Override
+	int legalMoves(Piece piece, int[] moves) {
+		SquareSet legal = legalSquares[toColor(piece) - 1];
+		int squareCount = getSquareCount();
+		for (int index = 0; index < legal.size(); index++) {
+			int pos = legal.get(index);
+			moves[index] = (pos / width - 1) * squareCount + (pos % width - 1);
+		}
+		return legal.size();
+	}
+
+	/**
+	 * 指定したマスに配置した場合に裏返る駒の数を取得する。<br>
+	 * 求めた結果は直後の{@link #turnOver(int, int, Piece)}で再利用されます。
+	 */
+	@Override
+	int flipCount(int column, int row, Piece piece) {
+		return findFlips(toPos(column, row), toColor(piece));
+	}
+
+	@Override
+	int legalMoveCount(Piece piece) {
+		return legalSquares[toColor(piece) - 1].size();
+	}
+
+	@Override
+	int count(Piece piece) {
+		byte color = toColor(piece);
+		return color == EMPTY ? emptyCount : discCounts[color - 1];
+	}
+
+	@Override
+	Board copy() {
+		MailboxBoard copy = new MailboxBoard(getSquareCount());
+		System.arraycopy(cells, 0, copy.cells, 0, cells.length);
+		copy.emptyCount = emptyCount;
+		copy.discCounts[0] = discCounts[0];
+		copy.discCounts[1] = discCounts[1];
+		copy.frontier.copyFrom(frontier);
+		copy.legalSquares[0].copyFrom(legalSquares[0]);
+		copy.legalSquares[1].copyFrom(legalSquares[1]);
+		copy.setHash(getHash());
+		return copy;
+	}
+
+	@Override
+	boolean isFull() {
+		return emptyCount == 0;
+	}
+
+	/**
+	 * 盤面を2次元配列に変換して取得する。<br>
+	 * 取得した配列を変更しても盤面には反映されません。
+	 */
+	@Override
+	Piece[][] getBoard() {
+		int squareCount = getSquareCount();
+		Piece[][] pieces = new Piece[squareCount][squareCount];
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				pieces[row][column] = toPiece(cells[toPos(column, row)]);
+			}
+		}
+		return pieces;
+	}
+
+	@Override
+	void setBoard(Piece[][] board) {
+		int squareCount = getSquareCount();
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				cells[toPos(column, row)] = toColor(board[row][column]);
+			}
+		}
+		version++;
+		rebuildIndex();
+		clearUndo();
+		resetHash();
+	}
+
+	@Override
+	void setSquareCount(int squareCount) {
+		if (squareCount != getSquareCount()) {
+			throw new UnsupportedOperationException("MailboxBoardのマス数は変更できません。");
+		}
+	}
+
+	/**
+	 * 空きマス数を取得する。
+	 * @return 空きマス数
+	 */
+	int getEmptyCount() {
+		return emptyCount;
+	}
+
+	/**
+	 * 駒に隣接する空きマスの数を取得する。
+	 * @return フロンティアの空きマス数
+	 */
+	int getFrontierCount() {
+		return frontier.size();
+	}
+
+	/**
+	 * 変化したマスから八方向に駒の並びをたどり、その先にある空きマスを再判定の対象にする。<br>
+	 * 着手可能かどうかが変わり得るのは、変化したマスとの間が駒で埋まっている空きマスだけです。
+	 * @param pos 変化したマス位置
+	 */
+	private void collectAffectedSquares(int pos) {
+		for (int direction : directions) {
+			int cursor = pos + direction;
+			while (cells[cursor] == BLACK || cells[cursor] == WHITE) {
+				cursor += direction;
+			}
+			if (cells[cursor] == EMPTY) {
+				addRefresh(cursor);
+			}
+		}
+	}
+
+	private void addRefresh(int pos) {
+		if (refreshStamp[pos] != stamp + 1) {
+			refreshStamp[pos] = stamp + 1;
+			refreshBuffer[refreshCount++] = pos;
+		}
+	}
+
+	/**
+	 * 再判定の対象として集めた空きマスについて、手番ごとの着手可能マスを更新する。
+	 */
+	private void refreshLegalSquares() {
+		for (int index = 0; index < refreshCount; index++) {
+			int pos = refreshBuffer[index];
+			updateLegal(pos, BLACK);
+			updateLegal(pos, WHITE);
+		}
+		refreshCount = 0;
+		stamp++;
+	}
+
+	private void updateLegal(int pos, byte color) {
+		SquareSet legal = legalSquares[color - 1];
+		if (cells[pos] == EMPTY && hasFlips(pos, color)) {
+			legal.add(pos);
+		} else {
+			legal.remove(pos);
+		}
+	}
+
+	private void updateFrontier(int pos) {
+		for (int direction : directions) {
+			byte neighbor = cells[pos + direction];
+			if (neighbor == BLACK || neighbor == WHITE) {
+				frontier.add(pos);
+				return;
+			}
+		}
+		frontier.remove(pos);
+	}
+
+	/**
+	 * 盤面全体から空きマス数・フロンティア・着手可能マスを作り直す。
+	 */
+	private void rebuildIndex() {
+		emptyCount = 0;
+		discCounts[0] = 0;
+		discCounts[1] = 0;
+		frontier.clear();
+		legalSquares[0].clear();
+		legalSquares[1].clear();
+		for (int pos = width + 1; pos < cells.length - width - 1; pos++) {
+			if (cells[pos] == BLACK || cells[pos] == WHITE) {
+				discCounts[cells[pos] - 1]++;
+				continue;
+			}
+			if (cells[pos] != EMPTY) {
+				continue;
+			}
+			emptyCount++;
+			updateFrontier(pos);
+			updateLegal(pos, BLACK);
+			updateLegal(pos, WHITE);
+		}
+	}
+
+	/**
+	 * 指定したマスに置いた場合に裏返る駒を求め、flipBufferに格納する。<br>
+	 * 同じ盤面・同じマス・同じ駒で判定済みの場合は前回の結果を再利用します。
+	 * @param pos マス位置
+	 * @param color 置く駒
+	 * @return 裏返る駒の数
+	 */
+	private int findFlips(int pos, byte color) {
+		if (pos == cachedPos && color == cachedColor && version == cachedVersion) {
+			return flipCount;
+		}
+		byte opponent = (byte) (BLACK + WHITE - color);
+		int count = 0;
+		for (int direction : directions) {
+			int cursor = pos + direction;
+			int start = count;
+			while (cells[cursor] == opponent) {
+				flipBuffer[count++] = cursor;
+				cursor += direction;
+			}
+			// 相手の駒の先に自分の駒がなければ、この方向は裏返せない。
+			if (cells[cursor] != color) {
+				count = start;
+			}
+		}
+		cachedPos = pos;
+		cachedColor = color;
+		cachedVersion = version;
+		flipCount = count;
+		return count;
+	}
+
+	/**
+	 * 指定したマスに置いた場合に１つ以上裏返せるか（裏返る駒の記録はしない）
+	 * @param pos マス位置
+	 * @param color 置く駒
+	 * @return 裏返せる場合はtrue
+	 */
+	private boolean hasFlips(int pos, byte color) {
+		byte opponent = (byte) (BLACK + WHITE - color);
+		for (int direction : directions) {
+			int cursor = pos + direction;
+			if (cells[cursor] != opponent) {
+				continue;
+			}
+			do {
+				cursor += direction;
+			} while (cells[cursor] == opponent);
+			if (cells[cursor] == color) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int toPos(int column, int row) {
+		return (row + 1) * width + column + 1;
+	}
+
+	private static byte toColor(Piece piece) {
+		if (piece.is(Piece.BLACK)) {
+			return BLACK;
+		}
+		return piece.is(Piece.WHITE) ? WHITE : EMPTY;
+	}
+
+	private static Piece toPiece(byte cell) {
+		if (cell == BLACK) {
+			return Piece.BLACK;
+		}
+		return cell == WHITE ? Piece.WHITE : Piece.EMPTY;
+	}
+
+	/**
+	 * マス位置の集合。追加・削除・判定をいずれも定数時間で行う。
+	 */
+	static final class SquareSet {
+
+		// 要素（先頭からsize個が有効）
+		private final int[] members;
+		// マス位置ごとのmembers上の添字（含まれない場合は-1）
+		private final int[] indexOf;
+		private int size;
+
+		SquareSet(int capacity) {
+			members = new int[capacity];
+			indexOf = new int[capacity];
+			Arrays.fill(indexOf, -1);
+		}
+
+		void add(int pos) {
+			if (indexOf[pos] < 0) {
+				indexOf[pos] = size;
+				members[size++] = pos;
+			}
+		}
+
+		void remove(int pos) {
+			int index = indexOf[pos];
+			if (index < 0) {
+				return;
+			}
+			// 末尾の要素で埋める
+			int last = members[--size];
+			members[index] = last;
+			indexOf[last] = index;
+			indexOf[pos] = -1;
+		}
+
+		boolean contains(int pos) {
+			return indexOf[pos] >= 0;
+		}
+
+		int get(int index) {
+			return members[index];
+		}
+
+		int size() {
+			return size;
+		}
+
+		void copyFrom(SquareSet other) {
+			System.arraycopy(other.members, 0, members, 0, members.length);
+			System.arraycopy(other.indexOf, 0, indexOf, 0, indexOf.length);
+			size = other.size;
+		}
+
+		void clear() {
+			for (int index = 0; index < size; index++) {
+				indexOf[members[index]] = -1;
+			}
+			size = 0;
+		}
+	}
+
+}
@@ -0,0 +1,237 @@
+package othello;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 定石ファイル（バイナリ形式）を参照する定石集。<br>
+ * ファイルはメモリマップで開き、ヒープ上のオブジェクトに展開しないため、
+ * ファイルサイズに関係なく開く処理はすぐに終わります。<br>
+ * 局面は盤面の回転・反転（8通り）のうち最小となるハッシュ値（正規化したハッシュ値）で引き、
+ * 登録されている手は正規化した向きから元の向きに戻して返します。<br>
+ * ファイル形式（ビッグエンディアン）：
+ * <pre>
+ * ヘッダー：識別子(int) バージョン(int) エントリ数(long)
+ * エントリ：正規化したハッシュ値(long) 手(int) 出現数(int) … ハッシュ値の昇順
+ * </pre>
+ */
+public class OpeningBook implements Closeable {
+
+	// ファイルの識別子（"OBK1"）
+	static final int MAGIC = 0x4f424b31;
+	// ファイル形式のバージョン
+	static final int VERSION = 1;
+	// ヘッダーのバイト数
+	static final int HEADER_BYTES = 16;
+	// 1エントリのバイト数
+	static final int ENTRY_BYTES = 16;
+	// 1回でマップするエントリ数（2GBの上限を超えないよう1GB単位でマップする）
+	private static final long CHUNK_ENTRIES = 1L << 26;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] chunks;
+	private final long entryCount;
+
+	private OpeningBook(FileChannel channel, MappedByteBuffer[] chunks, long entryCount) {
+		this.channel = channel;
+		this.chunks = chunks;
+		this.entryCount = entryCount;
+	}
+
+	/**
+	 * 定石ファイルを開く。
+	 * @param path ファイルのパス
+	 * @return 定石集
+	 * @throws IOException ファイルが読めない場合や形式が不正な場合
+	 */
+	static OpeningBook open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+				// ヘッダー分を読み込むまで繰り返す
+			}
+			header.flip();
+			if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("定石ファイルの形式が不正です：" + path);
+			}
+			long entryCount = header.getLong();
+			if (channel.size() < HEADER_BYTES + entryCount * ENTRY_BYTES) {
+				throw new IOException("定石ファイルが途中で切れています：" + path);
+			}
+
+			int chunkCount = (int) ((entryCount + CHUNK_ENTRIES - 1) / CHUNK_ENTRIES);
+			MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+			for (int index = 0; index < chunkCount; index++) {
+				long first = index * CHUNK_ENTRIES;
+				long count = Math.min(CHUNK_ENTRIES, entryCount - first);
+				chunks[index] = channel.map(FileChannel.MapMode.READ_ONLY,
+						HEADER_BYTES + first * ENTRY_BYTES, count * ENTRY_BYTES);
+			}
+			return new OpeningBook(channel, chunks, entryCount);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 局面に登録されている手を取得する。
+	 * @param board 盤面オブジェクト
+	 * @param piece 手番の駒
+	 * @return 「行番号 × マス数 + 列番号」の値（登録されていない場合は-1）
+	 */
+	int lookup(Board board, Piece piece) {
+		int[] symmetry = new int[1];
+		long key = canonicalKey(board, piece, symmetry);
+		long index = find(key);
+		if (index < 0) {
+			return -1;
+		}
+		int canonicalMove = entryMove(index);
+		return transform(canonicalMove, inverse(symmetry[0]), board.getSquareCount());
+	}
+
+	/**
+	 * 登録されているエントリ数
+	 */
+	long size() {
+		return entryCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * 二分探索でハッシュ値に一致するエントリを探す。
+	 * @return エントリの番号（見つからない場合は-1）
+	 */
+	private long find(long key) {
+		long low = 0;
+		long high = entryCount - 1;
+		while (low <= high) {
+			long middle = (low + high) >>> 1;
+			long middleKey = entryKey(middle);
+			if (middleKey < key) {
+				low = middle + 1;
+			} else if (middleKey > key) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	private long entryKey(long index) {
+		return chunks[(int) (index / CHUNK_ENTRIES)].getLong((int) (index % CHUNK_ENTRIES) * ENTRY_BYTES);
+	}
+
+	private int entryMove(long index) {
+		return chunks[(int) (index / CHUNK_ENTRIES)].getInt((int) (index % CHUNK_ENTRIES) * ENTRY_BYTES + 8);
+	}
+
+	/**
+	 * 盤面の回転・反転8通りのうち、ハッシュ値が最小となるものを求める。
+	 * @param board 盤面オブジェクト
+	 * @param piece 手番の駒
+	 * @param symmetry 採用した回転・反転の番号の格納先（要素数1以上）
+	 * @return 正規化したハッシュ値
+	 */
+	static long canonicalKey(Board board, Piece piece, int[] symmetry) {
+		int squareCount = board.getSquareCount();
+		int squares = squareCount * squareCount;
+		long[] zobristKeys = Zobrist.keys(squareCount);
+		long[] hashes = new long[8];
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				Piece target = board.getPiece(column, row);
+				if (target.isEmpty()) {
+					continue;
+				}
+				int square = row * squareCount + column;
+				for (int index = 0; index < 8; index++) {
+					hashes[index] ^= Zobrist.key(zobristKeys, squares,
+							transform(square, index, squareCount), target);
+				}
+			}
+		}
+		long sideKey = piece.is(Piece.WHITE) ? Zobrist.WHITE_TO_MOVE : 0L;
+		int best = 0;
+		for (int index = 1; index < 8; index++) {
+			if (hashes[index] < hashes[best]) {
+				best = index;
+			}
+		}
+		symmetry[0] = best;
+		return hashes[best] ^ sideKey;
+	}
+
+	/**
+	 * マスを回転・反転する。
+	 * @param square 「行番号 × マス数 + 列番号」の値
+	 * @param symmetry 0:そのまま 1:左右反転 2:上下反転 3:180度回転 4:対角線で反転
+	 *                 5:90度回転 6:270度回転 7:逆対角線で反転
+	 * @param squareCount 縦と横のマス数
+	 * @return 回転・反転後のマス
+	 */
+	static int transform(int square, int symmetry, int squareCount) {
+		int last = squareCount - 1;
+		int column = square % squareCount;
+		int row = square / squareCount;
+		int toColumn;
+		int toRow;
+		switch (symmetry) {
+		case 0:
+			toColumn = column;
+			toRow = row;
+			break;
+		case 1:
+			toColumn = last - column;
+			toRow = row;
+			break;
+		case 2:
+			toColumn = column;
+			toRow = last - row;
+			break;
+		case 3:
+			toColumn = last - column;
+			toRow = last - row;
+			break;
+		case 4:
+			toColumn = row;
+			toRow = column;
+			break;
+		case 5:
+			toColumn = last - row;
+			toRow = column;
+			break;
+		case 6:
+			toColumn = row;
+			toRow = last - column;
+			break;
+		default:
+			toColumn = last - row;
+			toRow = last - column;
+		}
+		return toRow * squareCount + toColumn;
+	}
+
+	/**
+	 * 回転・反転を元に戻す番号
+	 */
+	static int inverse(int symmetry) {
+		if (symmetry == 5) {
+			return 6;
+		}
+		return symmetry == 6 ? 5 : symmetry;
+	}
+
+}
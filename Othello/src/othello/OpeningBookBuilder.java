@@ -0,0 +1,206 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 定石ファイルを作成するプログラム。<br>
+ * 自己対戦、または棋譜ファイルから局面ごとの手と勝敗を集計し、
+ * 局面ごとに最も成績の良い手を {@link OpeningBook} の形式で書き出します。<br>
+ * 引数：
+ * <pre>
+ * selfplay マス数 対局数 手数 1手の思考時間(ms) 出力ファイル [シード]
+ * records 棋譜ファイル 手数 出力ファイル
+ * </pre>
+ * 棋譜ファイルは1行1局で「マス数 手 手 …」の形式です（手は「行番号 × マス数 + 列番号」、パスは省略）。<br>
+ * 手数は初手から何手目までを定石に登録するかを指定します。
+ */
+public class OpeningBookBuilder {
+
+	// 自己対戦で序盤の変化をつけるためにランダムに打つ手数
+	private static final int RANDOM_PLIES = 2;
+
+	// 局面の正規化したハッシュ値 → 手 → [0] 出現数、[1] 勝敗の合計（勝ち+1、負け-1）
+	private final Map<Long, Map<Integer, long[]>> statistics = new HashMap<>();
+
+	public static void main(String[] args) throws IOException {
+		if (args.length >= 5 && args[0].equals("selfplay")) {
+			OpeningBookBuilder builder = new OpeningBookBuilder();
+			builder.selfPlay(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+					Long.parseLong(args[4]), args.length > 6 ? Long.parseLong(args[6]) : 1);
+			print(String.format("%d局面を書き出しました。", builder.write(Paths.get(args[5]))));
+		} else if (args.length >= 4 && args[0].equals("records")) {
+			OpeningBookBuilder builder = new OpeningBookBuilder();
+			builder.readRecords(Paths.get(args[1]), Integer.parseInt(args[2]));
+			print(String.format("%d局面を書き出しました。", builder.write(Paths.get(args[3]))));
+		} else {
+			print("引数：selfplay マス数 対局数 手数 思考時間(ms) 出力ファイル [シード]");
+			print("　　　records 棋譜ファイル 手数 出力ファイル");
+		}
+	}
+
+	/**
+	 * 自己対戦で集計する。<br>
+	 * 序盤の数手だけランダムに打って変化をつけ、以降は探索で選んだ手を登録対象とします。
+	 */
+	void selfPlay(int squareCount, int games, int plies, long timeLimitMillis, long seed) {
+		SearchStrategy strategy = new SearchStrategy(timeLimitMillis);
+		Random random = new Random(seed);
+		for (int game = 0; game < games; game++) {
+			Board board = Board.create(squareCount);
+			Piece piece = SearchBenchmark.playRandomly(board, random, RANDOM_PLIES);
+			List<long[]> positions = new ArrayList<>();
+			int ply = RANDOM_PLIES;
+			while (board.legalMoveCount(piece) > 0) {
+				int move = strategy.selectMove(board, piece);
+				if (ply++ < plies) {
+					positions.add(position(board, piece, move));
+				}
+				piece = play(board, move, piece);
+			}
+			record(positions, board);
+			print(String.format("%d/%d局 黒%d枚 白%d枚", game + 1, games,
+					board.count(Piece.BLACK), board.count(Piece.WHITE)));
+		}
+	}
+
+	/**
+	 * 棋譜ファイルから集計する。
+	 */
+	void readRecords(Path path, int plies) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				String[] tokens = line.trim().split("\\s+");
+				if (tokens[0].isEmpty()) {
+					continue;
+				}
+				Board board = Board.create(Integer.parseInt(tokens[0]));
+				board.init();
+				int squareCount = board.getSquareCount();
+				Piece piece = Piece.BLACK;
+				List<long[]> positions = new ArrayList<>();
+				for (int index = 1; index < tokens.length; index++) {
+					int move = Integer.parseInt(tokens[index]);
+					if (!isLegal(board, move, piece)) {
+						// パスは棋譜に含まれないため、相手の手として扱えるか確かめる。
+						if (board.legalMoveCount(piece) > 0 || !isLegal(board, move, piece.opponent())) {
+							throw new IOException(String.format("%d行目の%d手目が不正です。", lineNumber, index));
+						}
+						piece = piece.opponent();
+					}
+					if (index <= plies) {
+						positions.add(position(board, piece, move));
+					}
+					piece = play(board, move, piece);
+				}
+				if (board.legalMoveCount(Piece.BLACK) > 0 || board.legalMoveCount(Piece.WHITE) > 0) {
+					throw new IOException(String.format("%d行目の棋譜が終局していません。(%dマス)", lineNumber, squareCount));
+				}
+				record(positions, board);
+			}
+		}
+	}
+
+	/**
+	 * 集計結果を定石ファイルとして書き出す。
+	 * @return 書き出した局面数
+	 */
+	int write(Path path) throws IOException {
+		long[] keys = new long[statistics.size()];
+		int count = 0;
+		for (Long key : statistics.keySet()) {
+			keys[count++] = key;
+		}
+		Arrays.sort(keys);
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+			out.writeInt(OpeningBook.MAGIC);
+			out.writeInt(OpeningBook.VERSION);
+			out.writeLong(keys.length);
+			for (long key : keys) {
+				int bestMove = -1;
+				long[] best = null;
+				for (Map.Entry<Integer, long[]> entry : statistics.get(key).entrySet()) {
+					if (best == null || isBetter(entry.getValue(), best)) {
+						bestMove = entry.getKey();
+						best = entry.getValue();
+					}
+				}
+				out.writeLong(key);
+				out.writeInt(bestMove);
+				out.writeInt((int) Math.min(Integer.MAX_VALUE, best[0]));
+			}
+		}
+		return keys.length;
+	}
+
+	/**
+	 * 勝率（勝敗の合計 ÷ 出現数）が高い方、同じなら出現数が多い方を良い手とする。
+	 */
+	private static boolean isBetter(long[] candidate, long[] best) {
+		long compare = candidate[1] * best[0] - best[1] * candidate[0];
+		return compare > 0 || compare == 0 && candidate[0] > best[0];
+	}
+
+	/**
+	 * 局面と手を正規化した向きで表す。
+	 * @return [0] 正規化したハッシュ値、[1] 正規化した向きの手、[2] 手番の駒（黒なら1、白なら-1）
+	 */
+	private static long[] position(Board board, Piece piece, int move) {
+		int[] symmetry = new int[1];
+		long key = OpeningBook.canonicalKey(board, piece, symmetry);
+		int canonicalMove = OpeningBook.transform(move, symmetry[0], board.getSquareCount());
+		return new long[] { key, canonicalMove, piece.is(Piece.BLACK) ? 1 : -1 };
+	}
+
+	/**
+	 * 終局した盤面の勝敗を、登録対象の各局面の手番から見た結果として集計する。
+	 */
+	private void record(List<long[]> positions, Board board) {
+		int blackResult = Integer.signum(board.count(Piece.BLACK) - board.count(Piece.WHITE));
+		for (long[] position : positions) {
+			long[] total = statistics.computeIfAbsent(position[0], key -> new HashMap<>())
+					.computeIfAbsent((int) position[1], move -> new long[2]);
+			total[0]++;
+			total[1] += blackResult * position[2];
+		}
+	}
+
+	private static boolean isLegal(Board board, int move, Piece piece) {
+		int squareCount = board.getSquareCount();
+		if (move < 0 || move >= squareCount * squareCount) {
+			return false;
+		}
+		int column = move % squareCount;
+		int row = move / squareCount;
+		return board.squareIsEmpty(column, row) && board.isSelectable(column, row, piece);
+	}
+
+	/**
+	 * 着手して、次の手番の駒を返す（相手が置けない場合は手番を変えない）。
+	 */
+	private static Piece play(Board board, int move, Piece piece) {
+		int squareCount = board.getSquareCount();
+		board.putPiece(move % squareCount, move / squareCount, piece);
+		board.turnOver(move % squareCount, move / squareCount, piece);
+		return board.legalMoveCount(piece.opponent()) > 0 ? piece.opponent() : piece;
+	}
+
+}
@@ -3,45 +3,154 @@ package othello;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 /**
- * このプログラムを実行すると、コンソールでオセロゲームが出来ます。
+ * このプログラムを実行すると、コンソールでオセロゲームが出来ます。<br>
+ * 第1引数に「batch」を指定した場合は、CPU同士の一括対局を行います（{@link BatchSimulator}）。<br>
+ * 第1引数に「server」を指定した場合は、TCPで接続したクライアントと対局するサーバーとして動作します（{@link GameServer}）。<br>
+ * 第1引数に「tournament」を指定した場合は、思考ルーチン同士の対局大会を行います（{@link Tournament}）。<br>
+ * 第1引数に「train」を指定した場合は、自己対局で評価関数の重みを学習します（{@link WeightTrainer}）。<br>
+ * システムプロパティ othello.journal でジャーナルを指定した場合は、手順を追記しながら対局し、
+ * 前回書き込み途中で終わった対局があればその局面から再開します（{@link GameJournal}）。
  * @author R.Kageyama
  */
 public class Othello {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException, InterruptedException {
 
-		// 先手/後手 をランダムで決める。
-		boolean isPlayerFirst = new Random().nextBoolean();
+		// 一括対局モード
+		if (args.length > 0 && args[0].equals("batch")) {
+			BatchSimulator.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 
-		// Gameマネージャーの生成
-		GameManager gm = new GameManager(isPlayerFirst);
+		// サーバーモード
+		if (args.length > 0 && args[0].equals("server")) {
+			GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 
-		// オセロゲームの縦横のマス数の入力要求と取得
-		int boardSquareCount = gm.requestEntryForSquareCount();
+		// 対局大会モード
+		if (args.length > 0 && args[0].equals("tournament")) {
+			Tournament.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 
-		// 自動進行モードの有効/無効
-		boolean enableAutoMode = gm.requestEntryForAutoMode();
+		// 重みの学習モード
+		if (args.length > 0 && args[0].equals("train")) {
+			WeightTrainer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
 
-		// 盤面オブジェクトの取得
-		Board board = gm.createBoard(boardSquareCount);
+		// ジャーナルを開き、再開する対局を探す（使わない場合はnull）
+		GameJournal journal = openJournal();
+		GameJournal.Game resumed = journal != null ? findResumedGame(journal) : null;
+		try {
+			// 先手/後手 をランダムで決める（再開する場合は初期配置から決まる）。
+			boolean isPlayerFirst = resumed != null
+					? resumed.getRecord().getDiagonalPiece().is(Piece.WHITE)
+					: new Random().nextBoolean();
 
-		// オセロゲーム開始
-		gm.printStartMessage();
+			// 定石集を開く（ファイルはメモリマップで参照するため、読み込み待ちは発生しない）
+			OpeningBook book = openBook();
 
-		// 盤面の初期化
-		board.init();
+			// Gameマネージャーの生成
+			GameManager gm = new GameManager(isPlayerFirst, book);
+			if (journal != null) {
+				gm.setJournal(journal, resumed);
+			}
 
-		// 盤面の表示
-		board.displayInfo();
+			// オセロゲームの縦横のマス数の入力要求と取得
+			int boardSquareCount = resumed != null ? resumed.getRecord().getSquareCount()
+					: gm.requestEntryForSquareCount();
 
-		// オセロゲームの開始
-		gm.startGame(board, enableAutoMode);
+			// 自動進行モードの有効/無効
+			boolean enableAutoMode = gm.requestEntryForAutoMode();
 
-		// オセロゲームの終了
-		gm.endGame(board);
+			// 盤面オブジェクトの取得
+			Board board = gm.createBoard(boardSquareCount);
+
+			// オセロゲーム開始
+			gm.printStartMessage();
+
+			// 盤面の初期化（CPUの駒を中央の対角線上に置く）。再開する場合は記録済みの手順を再現する。
+			Piece sideToMove = Piece.BLACK;
+			if (resumed != null) {
+				resumed.getRecord().replay(board, false);
+				sideToMove = resumed.getRecord().getSideToMove();
+			} else {
+				board.init(gm.getCpuPiece());
+			}
+
+			// 盤面の表示
+			gm.displayBoard(board);
+
+			// オセロゲームの開始
+			gm.startGame(board, enableAutoMode, sideToMove);
+
+			// オセロゲームの終了
+			gm.endGame(board);
+		} finally {
+			if (journal != null) {
+				journal.close();
+			}
+		}
+	}
+
+	/**
+	 * ジャーナルを開く。<br>
+	 * ファイルはシステムプロパティ othello.journal で指定します（省略時は使わない）。
+	 * @return ジャーナル（使わない場合や開けない場合はnull）
+	 */
+	private static GameJournal openJournal() {
+		try {
+			return GameJournal.openFromProperties();
+		} catch (IOException e) {
+			ConsolePrinter.printAlert("ジャーナルを開けないため、手順を記録せずに進めます。" + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * 書き込み途中で終わった対局のうち、最後に始めたものを再開の対象にする（それ以外は終局扱いにする）。
+	 * @param journal ジャーナル
+	 * @return 再開する対局（無い場合はnull）
+	 */
+	private static GameJournal.Game findResumedGame(GameJournal journal) {
+		List<GameJournal.Game> games = journal.getUnfinishedGames();
+		if (games.isEmpty()) {
+			return null;
+		}
+		for (GameJournal.Game game : games.subList(0, games.size() - 1)) {
+			game.end();
+		}
+		GameJournal.Game resumed = games.get(games.size() - 1);
+		ConsolePrinter.printInfo(String.format("前回の対局を%d手目から再開します。", resumed.getRecord().getMoveCount() + 1));
+		return resumed;
+	}
+
+	/**
+	 * 定石ファイルを開く。<br>
+	 * ファイルはシステムプロパティ othello.book で指定します（省略時は othello.book）。
+	 * @return 定石集（ファイルが無い場合や開けない場合はnull）
+	 */
+	private static OpeningBook openBook() {
+		Path path = Paths.get(System.getProperty("othello.book", "othello.book"));
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try {
+			return OpeningBook.open(path);
+		} catch (IOException e) {
+			ConsolePrinter.printAlert("定石ファイルを開けないため、定石を使わずに進めます。" + e.getMessage());
+			return null;
+		}
 	}
 
 }
@@ -0,0 +1,361 @@
+package othello;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 辺・隅・対角線などのパターンごとに、マスの並びに対応する重みを引いて合計する評価関数。<br>
+ * パターンは隅を起点としたマスの並びで、盤面の回転・反転に合わせて各隅に当てはめます（盤面からはみ出すマスは空きマスとみなします）。
+ * このため、同じ重みをどのマス数の盤面にも使えます。<br>
+ * パターンの添字（マスの並びを3進数で表した値）は {@link Board.CellListener} で盤面の変更に合わせて差分だけを更新するため、
+ * 評価は添字の数（数十回）だけ重みの配列を引く処理で済みます。
+ * 添字は盤面に通知先として登録し、最初に評価した時に盤面全体から計算します。<br>
+ * 重みは埋まったマスの割合で分けた段階ごとに持ち、手番側から見た値（1石を {@link #DISC_SCALE} とする）で格納します。<br>
+ * 重みファイルの形式（ビッグエンディアン）：
+ * <pre>
+ * ヘッダー：識別子(int) バージョン(int) 段階数(int) パターン数(int) パターンごとのマス数(int) …
+ * 重み　　：段階ごとに、パターンの順に 3^マス数 個の重み(short)
+ * </pre>
+ */
+public class PatternEvaluator implements Evaluator {
+
+	// ファイルの識別子（"OPW1"）
+	static final int MAGIC = 0x4f505731;
+	// ファイル形式のバージョン
+	static final int VERSION = 1;
+	// 1石あたりの評価値
+	static final int DISC_SCALE = 32;
+	// 評価値の上限（終局時の評価値を超えないようにする）
+	private static final int MAX_SCORE = SearchStrategy.WIN_SCORE - 1;
+
+	// パターンのマス（左上の隅を起点とした{列, 行}）
+	private static final int[][][] PATTERNS = {
+			// 辺とXマス
+			{ { 0, 0 }, { 1, 0 }, { 2, 0 }, { 3, 0 }, { 4, 0 }, { 5, 0 }, { 6, 0 }, { 7, 0 }, { 1, 1 } },
+			// 隅の2×5ブロック
+			{ { 0, 0 }, { 1, 0 }, { 2, 0 }, { 3, 0 }, { 4, 0 }, { 0, 1 }, { 1, 1 }, { 2, 1 }, { 3, 1 }, { 4, 1 } },
+			// 隅の3×3ブロック
+			{ { 0, 0 }, { 1, 0 }, { 2, 0 }, { 0, 1 }, { 1, 1 }, { 2, 1 }, { 0, 2 }, { 1, 2 }, { 2, 2 } },
+			// 対角線
+			{ { 0, 0 }, { 1, 1 }, { 2, 2 }, { 3, 3 }, { 4, 4 }, { 5, 5 }, { 6, 6 }, { 7, 7 } },
+			// 辺から2列目
+			{ { 0, 1 }, { 1, 1 }, { 2, 1 }, { 3, 1 }, { 4, 1 }, { 5, 1 }, { 6, 1 }, { 7, 1 } },
+			// 辺から3列目
+			{ { 0, 2 }, { 1, 2 }, { 2, 2 }, { 3, 2 }, { 4, 2 }, { 5, 2 }, { 6, 2 }, { 7, 2 } },
+	};
+	// 対角線で反転しても同じマスになるパターン（隅ごとに1回だけ当てはめる）
+	private static final boolean[] DIAGONAL_SYMMETRIC = { false, false, true, true, false, false };
+
+	// パターンごとの重みの開始位置と、1段階分の重みの数
+	private static final int[] PATTERN_OFFSETS = new int[PATTERNS.length];
+	private static final int WEIGHTS_PER_PHASE;
+
+	static {
+		int offset = 0;
+		for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+			PATTERN_OFFSETS[pattern] = offset;
+			offset += power(PATTERNS[pattern].length);
+		}
+		WEIGHTS_PER_PHASE = offset;
+	}
+
+	// マス数 → パターンの当てはめ方
+	private static final Map<Integer, Layout> LAYOUTS = new ConcurrentHashMap<>();
+
+	// [段階][パターンの重みの開始位置 + 添字] の重み
+	private final short[][] weights;
+
+	/**
+	 * @param weights 段階ごとの重み（{@link #getWeightsPerPhase()} 個ずつ）
+	 */
+	PatternEvaluator(short[][] weights) {
+		if (weights.length == 0) {
+			throw new IllegalArgumentException("段階は1つ以上必要です。");
+		}
+		for (short[] phase : weights) {
+			if (phase.length != WEIGHTS_PER_PHASE) {
+				throw new IllegalArgumentException("重みの数が一致しません：" + phase.length);
+			}
+		}
+		this.weights = weights;
+	}
+
+	@Override
+	public int evaluate(Board board, Piece piece) {
+		Indices indices = Indices.of(board);
+		short[] table = weights[indices.getPhase(weights.length)];
+		int score = 0;
+		for (int index : indices.get(piece)) {
+			score += table[index];
+		}
+		return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+	}
+
+	/**
+	 * 段階数
+	 */
+	int getPhaseCount() {
+		return weights.length;
+	}
+
+	/**
+	 * 段階ごとの重み（変更しないこと）
+	 */
+	short[][] getWeights() {
+		return weights;
+	}
+
+	/**
+	 * 1段階分の重みの数
+	 */
+	static int getWeightsPerPhase() {
+		return WEIGHTS_PER_PHASE;
+	}
+
+	/**
+	 * 重みファイルを読み込む。
+	 * @param path ファイルのパス
+	 * @return 評価関数
+	 * @throws IOException ファイルが読めない場合や、形式・パターンが一致しない場合
+	 */
+	static PatternEvaluator load(Path path) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("重みファイルの形式が不正です：" + path);
+			}
+			int phases = in.readInt();
+			int patterns = in.readInt();
+			if (phases <= 0 || patterns != PATTERNS.length) {
+				throw new IOException("重みファイルのパターンが一致しません：" + path);
+			}
+			for (int[][] pattern : PATTERNS) {
+				if (in.readInt() != pattern.length) {
+					throw new IOException("重みファイルのパターンが一致しません：" + path);
+				}
+			}
+			short[][] weights = new short[phases][WEIGHTS_PER_PHASE];
+			for (short[] phase : weights) {
+				for (int index = 0; index < phase.length; index++) {
+					phase[index] = in.readShort();
+				}
+			}
+			return new PatternEvaluator(weights);
+		}
+	}
+
+	/**
+	 * システムプロパティ othello.weights で指定された重みファイル（省略時は othello.weights）を読み込む。
+	 * @return 評価関数（ファイルが無い場合や読めない場合はnull）
+	 */
+	static PatternEvaluator loadFromProperties() {
+		Path path = Paths.get(System.getProperty("othello.weights", "othello.weights"));
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try {
+			return load(path);
+		} catch (IOException e) {
+			ConsolePrinter.printAlert("重みファイルを読み込めないため、標準の評価関数を使います。" + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * 重みファイルを書き出す。
+	 * @param path ファイルのパス
+	 */
+	void save(Path path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(weights.length);
+			out.writeInt(PATTERNS.length);
+			for (int[][] pattern : PATTERNS) {
+				out.writeInt(pattern.length);
+			}
+			for (short[] phase : weights) {
+				for (short weight : phase) {
+					out.writeShort(weight);
+				}
+			}
+		}
+	}
+
+	private static int power(int exponent) {
+		int value = 1;
+		for (int count = 0; count < exponent; count++) {
+			value *= 3;
+		}
+		return value;
+	}
+
+	/**
+	 * マス数ごとの、パターンを各隅に当てはめた結果（当てはめたパターンを「実体」と呼ぶ）。
+	 */
+	private static final class Layout {
+
+		// 実体ごとの重みの開始位置
+		private final int[] offsets;
+		// マスごとの [cellStarts[マス], cellStarts[マス + 1]) の範囲に、そのマスを含む実体と3進数の桁の重みを並べる
+		private final int[] cellStarts;
+		private final int[] cellInstances;
+		private final int[] cellPowers;
+
+		private Layout(int squareCount) {
+			List<Integer> offsetList = new ArrayList<>();
+			List<List<int[]>> cells = new ArrayList<>();
+			int squares = squareCount * squareCount;
+			for (int square = 0; square < squares; square++) {
+				cells.add(new ArrayList<>());
+			}
+			for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+				int orientations = DIAGONAL_SYMMETRIC[pattern] ? 4 : 8;
+				for (int orientation = 0; orientation < orientations; orientation++) {
+					int instance = offsetList.size();
+					offsetList.add(PATTERN_OFFSETS[pattern]);
+					int digit = 1;
+					for (int[] cell : PATTERNS[pattern]) {
+						int column = orientation >= 4 ? cell[1] : cell[0];
+						int row = orientation >= 4 ? cell[0] : cell[1];
+						// 盤面からはみ出すマスは、常に空きマスの桁として扱う。
+						if (column < squareCount && row < squareCount) {
+							if ((orientation & 1) != 0) {
+								column = squareCount - 1 - column;
+							}
+							if ((orientation & 2) != 0) {
+								row = squareCount - 1 - row;
+							}
+							cells.get(row * squareCount + column).add(new int[] { instance, digit });
+						}
+						digit *= 3;
+					}
+				}
+			}
+			offsets = offsetList.stream().mapToInt(Integer::intValue).toArray();
+			cellStarts = new int[squares + 1];
+			int total = 0;
+			for (int square = 0; square < squares; square++) {
+				cellStarts[square] = total;
+				total += cells.get(square).size();
+			}
+			cellStarts[squares] = total;
+			cellInstances = new int[total];
+			cellPowers = new int[total];
+			for (int square = 0; square < squares; square++) {
+				int position = cellStarts[square];
+				for (int[] entry : cells.get(square)) {
+					cellInstances[position] = entry[0];
+					cellPowers[position] = entry[1];
+					position++;
+				}
+			}
+		}
+
+		static Layout of(int squareCount) {
+			return LAYOUTS.computeIfAbsent(squareCount, Layout::new);
+		}
+	}
+
+	/**
+	 * 1つの盤面のパターンの添字。盤面のマスの変更通知で差分だけを更新します。<br>
+	 * 添字は重みの開始位置を加えた値で、黒番から見た値と白番から見た値（自分の駒を1、相手の駒を2とする3進数）を持ちます。
+	 * 盤面と同じく、1つのスレッドから使う前提です。
+	 */
+	static final class Indices implements Board.CellListener {
+
+		// 駒の序数 → 黒番から見た桁の値、白番から見た桁の値
+		private static final int[] BLACK_DIGITS = new int[Piece.values().length];
+		private static final int[] WHITE_DIGITS = new int[Piece.values().length];
+
+		static {
+			BLACK_DIGITS[Piece.BLACK.ordinal()] = 1;
+			BLACK_DIGITS[Piece.WHITE.ordinal()] = 2;
+			WHITE_DIGITS[Piece.WHITE.ordinal()] = 1;
+			WHITE_DIGITS[Piece.BLACK.ordinal()] = 2;
+		}
+
+		private final Layout layout;
+		private final int squares;
+		private final int[] black;
+		private final int[] white;
+		// 盤面上の駒の数
+		private int discs;
+
+		private Indices(int squareCount) {
+			this.layout = Layout.of(squareCount);
+			this.squares = squareCount * squareCount;
+			this.black = new int[layout.offsets.length];
+			this.white = new int[layout.offsets.length];
+		}
+
+		/**
+		 * 盤面の添字を取得する（まだ無ければ作成して盤面に登録する）。
+		 * @param board 盤面オブジェクト
+		 * @return 添字
+		 */
+		static Indices of(Board board) {
+			Board.CellListener listener = board.getCellListener();
+			if (listener instanceof Indices) {
+				return (Indices) listener;
+			}
+			Indices indices = new Indices(board.getSquareCount());
+			board.setCellListener(indices);
+			return indices;
+		}
+
+		/**
+		 * 指定した駒から見た添字（重みの開始位置を加えた値、変更しないこと）
+		 */
+		int[] get(Piece piece) {
+			return piece.is(Piece.BLACK) ? black : white;
+		}
+
+		/**
+		 * 埋まったマスの割合から求めた段階
+		 * @param phases 段階数
+		 */
+		int getPhase(int phases) {
+			return Math.max(0, discs - 4) * phases / (squares - 3);
+		}
+
+		@Override
+		public void cellChanged(int square, Piece before, Piece after) {
+			int blackDelta = BLACK_DIGITS[after.ordinal()] - BLACK_DIGITS[before.ordinal()];
+			int whiteDelta = WHITE_DIGITS[after.ordinal()] - WHITE_DIGITS[before.ordinal()];
+			int[] instances = layout.cellInstances;
+			int[] powers = layout.cellPowers;
+			for (int position = layout.cellStarts[square]; position < layout.cellStarts[square + 1]; position++) {
+				int instance = instances[position];
+				black[instance] += blackDelta * powers[position];
+				white[instance] += whiteDelta * powers[position];
+			}
+			discs += (after.isEmpty() ? 0 : 1) - (before.isEmpty() ? 0 : 1);
+		}
+
+		@Override
+		public void boardReset(Board board) {
+			System.arraycopy(layout.offsets, 0, black, 0, black.length);
+			System.arraycopy(layout.offsets, 0, white, 0, white.length);
+			discs = 0;
+			int squareCount = board.getSquareCount();
+			for (int square = 0; square < squares; square++) {
+				Piece piece = board.getPiece(square % squareCount, square / squareCount);
+				if (!piece.isEmpty()) {
+					cellChanged(square, Piece.EMPTY, piece);
+				}
+			}
+		}
+	}
+
+}
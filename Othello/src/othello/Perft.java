@@ -0,0 +1,149 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 初期配置から指定の深さまでの局面数を数え、着手生成の正しさと速度を確かめる計測用プログラム（perft）。<br>
+ * パスは {@link GameManager#startGame} と同じく1手として数え、双方が置けない局面（終局）はその時点で1局面と数えます。<br>
+ * 盤面は複製せず、{@link Board#makeMove}と{@link Board#unmakeMove}で進めて戻します。
+ * 最後の1手は着手可能なマスの数をそのまま数える一括計数と、最初の1手ごとに複数スレッドで数える並列化に対応します。
+ * 8×8では既知の値と比較した結果も出力します。<br>
+ * 引数：マス数 深さ スレッド数 一括計数(true/false) 実装（省略時は 8 9 CPUコア数 true create、実装は create・array）
+ */
+public class Perft {
+
+	// 8×8の既知の値（[深さ - 1]）
+	private static final long[] KNOWN_8X8 = { 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L,
+			24571284L, 212258800L, 1939886636L };
+
+	private final boolean bulk;
+	// 深さごとの着手可能なマスの格納先
+	private final int[][] moveBuffers;
+
+	/**
+	 * @param squareCount 縦と横のマス数
+	 * @param depth 数える深さ
+	 * @param bulk 最後の1手を一括計数する場合はtrue
+	 */
+	Perft(int squareCount, int depth, boolean bulk) {
+		this.bulk = bulk;
+		this.moveBuffers = new int[depth + 1][squareCount * squareCount];
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int squareCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 9;
+		int threadCount = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		boolean bulk = args.length > 3 ? Boolean.parseBoolean(args[3]) : true;
+		boolean array = args.length > 4 && args[4].equals("array");
+
+		print(String.format("%dマス・%s・%dスレッド・一括計数%s", squareCount, array ? "array" : "create",
+				threadCount, bulk ? "有効" : "無効"));
+		print("深さ\t局面数\t時間(ms)\t局面/秒\t既知の値");
+		for (int current = 1; current <= depth; current++) {
+			Board board = array ? new Board(squareCount) : Board.create(squareCount);
+			board.init();
+			long start = System.nanoTime();
+			long nodes = count(board, Piece.BLACK, current, threadCount, bulk);
+			long elapsed = System.nanoTime() - start;
+			String check = "-";
+			if (squareCount == 8 && current <= KNOWN_8X8.length) {
+				check = nodes == KNOWN_8X8[current - 1] ? "一致" : "不一致（" + KNOWN_8X8[current - 1] + "）";
+			}
+			print(String.format("%d\t%d\t%d\t%d\t%s", current, nodes, elapsed / 1_000_000,
+					nodes * 1_000_000_000L / Math.max(1, elapsed), check));
+		}
+	}
+
+	/**
+	 * 局面数を数える（最初の1手ごとに分けて複数スレッドで数える）。
+	 * @param board 盤面オブジェクト（数え終わると元の配置に戻る）
+	 * @param piece 手番の駒
+	 * @param depth 深さ
+	 * @param threadCount スレッド数
+	 * @param bulk 最後の1手を一括計数する場合はtrue
+	 * @return 局面数
+	 */
+	static long count(Board board, Piece piece, int depth, int threadCount, boolean bulk)
+			throws InterruptedException {
+		int squareCount = board.getSquareCount();
+		if (threadCount <= 1 || depth <= 1) {
+			return new Perft(squareCount, depth, bulk).perft(board, piece, depth, false);
+		}
+		int[] moves = new int[squareCount * squareCount];
+		int count = board.legalMoves(piece, moves);
+		if (count == 0) {
+			// 最初の手番がパスの場合は分けずに数える。
+			return new Perft(squareCount, depth, bulk).perft(board, piece, depth, false);
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<Long>> futures = new ArrayList<>();
+			for (int index = 0; index < count; index++) {
+				Board child = play(board, moves[index], piece);
+				futures.add(executor.submit(
+						() -> new Perft(squareCount, depth - 1, bulk).perft(child, piece.opponent(), depth - 1, false)));
+			}
+			long nodes = 0;
+			for (Future<Long> future : futures) {
+				nodes += future.get();
+			}
+			return nodes;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("局面数の計算中にエラーが発生しました。", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * 局面数を数える。
+	 * @param passed 直前の手番がパスならtrue
+	 */
+	private long perft(Board board, Piece piece, int depth, boolean passed) {
+		if (depth == 0) {
+			return 1;
+		}
+		int squareCount = board.getSquareCount();
+		int[] moves = moveBuffers[depth];
+		int count = board.legalMoves(piece, moves);
+		if (count == 0) {
+			if (passed) {
+				// 双方が置けないので終局
+				return 1;
+			}
+			// パスも1手として数える。
+			return perft(board, piece.opponent(), depth - 1, true);
+		}
+		if (depth == 1 && bulk) {
+			return count;
+		}
+		long nodes = 0;
+		for (int index = 0; index < count; index++) {
+			int move = moves[index];
+			board.makeMove(move % squareCount, move / squareCount, piece);
+			nodes += perft(board, piece.opponent(), depth - 1, false);
+			board.unmakeMove();
+		}
+		return nodes;
+	}
+
+	/**
+	 * 盤面を複製した上で指定したマスに配置する（最初の1手ごとに別のスレッドで数えるため）。
+	 */
+	private static Board play(Board board, int move, Piece piece) {
+		int squareCount = board.getSquareCount();
+		Board child = board.copy();
+		child.putPiece(move % squareCount, move / squareCount, piece);
+		child.turnOver(move % squareCount, move / squareCount, piece);
+		return child;
+	}
+
+}
@@ -29,7 +29,22 @@ public enum Piece {
 	}
 
 	public boolean isEmpty() {
-		return this.name().equals(EMPTY.name());
+		return this == EMPTY;
+	}
+
+	/**
+	 * 相手の駒を取得する。
+	 * @return 黒なら白、白なら黒、空の場合は空
+	 */
+	public Piece opponent() {
+		switch (this) {
+		case BLACK:
+			return WHITE;
+		case WHITE:
+			return BLACK;
+		default:
+			return EMPTY;
+		}
 	}
 
 	public boolean is(Piece piece) {
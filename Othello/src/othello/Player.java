@@ -4,11 +4,18 @@ public class Player {
 	private String name;
 	private Piece piece;
 	private boolean autoPlay;
+	// 自動で配置する際の思考ルーチン
+	private Strategy strategy;
 
 	public Player(String name, Piece piece, boolean autoPlay) {
+		this(name, piece, autoPlay, new RandomStrategy());
+	}
+
+	public Player(String name, Piece piece, boolean autoPlay, Strategy strategy) {
 		this.name = name;
 		this.piece = piece;
 		this.autoPlay = autoPlay;
+		this.strategy = strategy;
 	}
 
 	String getName() {
@@ -35,4 +42,12 @@ public class Player {
 		this.autoPlay = autoPlay;
 	}
 
+	Strategy getStrategy() {
+		return strategy;
+	}
+
+	void setStrategy(Strategy strategy) {
+		this.strategy = strategy;
+	}
+
 }
@@ -1,24 +1,45 @@
 package othello;
 
-import static othello.GameManager.*;
-
 public class PlayerManager {
 
 	Player player;
 	Player cpu;
+	// プレイヤーとCPUが使う駒
+	private final Piece playerPiece;
+	private final Piece cpuPiece;
+	// CPUが使う定石集（使わない場合はnull）
+	private final OpeningBook book;
+
+	PlayerManager(Piece playerPiece) {
+		this(playerPiece, null);
+	}
 
-	PlayerManager() {
+	/**
+	 * @param playerPiece プレイヤーが使う駒（CPUは相手の駒を使う）
+	 * @param book CPUが使う定石集（使わない場合はnull）
+	 */
+	PlayerManager(Piece playerPiece, OpeningBook book) {
+		this.playerPiece = playerPiece;
+		this.cpuPiece = playerPiece.opponent();
+		this.book = book;
 		player = makePlayer("プレイヤー");
 		cpu = makeCPU("コンピューター");
 	}
 
 	Player makePlayer(String name) {
-		player = new Player(name, PLAYER_PIECE, false);
+		player = new Player(name, playerPiece, false);
 		return player;
 	}
 
 	Player makeCPU(String name) {
-		Player cpu = new Player(name, CPU_PIECE, true);
+		// αβ探索で先読みするCPU（定石集があれば、定石にある局面では定石の手を選ぶ）
+		// 重みファイルがあればパターンの評価関数を使う。
+		PatternEvaluator evaluator = PatternEvaluator.loadFromProperties();
+		Strategy strategy = evaluator != null ? new SearchStrategy(evaluator) : new SearchStrategy();
+		if (book != null) {
+			strategy = new BookStrategy(book, strategy);
+		}
+		Player cpu = new Player(name, cpuPiece, true, strategy);
 		return cpu;
 	}
 
@@ -0,0 +1,36 @@
+package othello;
+
+import java.util.Random;
+
+/**
+ * 着手可能なマスの中からランダムに選ぶ思考ルーチン。
+ */
+public class RandomStrategy implements Strategy {
+
+	// 乱数生成器
+	private final Random random;
+	// 着手可能なマスの格納先
+	private int[] moveBuffer = new int[0];
+
+	RandomStrategy() {
+		this(new Random());
+	}
+
+	/**
+	 * @param random 乱数生成器（シードを固定すると同じ手順を再現できます）
+	 */
+	RandomStrategy(Random random) {
+		this.random = random;
+	}
+
+	@Override
+	public int selectMove(Board board, Piece piece) {
+		int squareCount = board.getSquareCount();
+		if (moveBuffer.length < squareCount * squareCount) {
+			moveBuffer = new int[squareCount * squareCount];
+		}
+		int count = board.legalMoves(piece, moveBuffer);
+		return moveBuffer[random.nextInt(count)];
+	}
+
+}
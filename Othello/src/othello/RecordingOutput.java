@@ -0,0 +1,90 @@
+package othello;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 出力を別の出力先に渡しつつ、着手とパスを棋譜に記録し、終局時に {@link GameRecordWriter} に書き込む出力先。
+ */
+public class RecordingOutput implements GameOutput {
+
+	// 出力を渡す先
+	private final GameOutput delegate;
+	// 棋譜の書き出し先
+	private final GameRecordWriter writer;
+	private final GameRecord record = new GameRecord();
+
+	/**
+	 * @param delegate 出力を渡す先
+	 * @param writer 棋譜の書き出し先
+	 * @param board 初期配置の盤面
+	 * @param firstPiece 先手の駒
+	 */
+	RecordingOutput(GameOutput delegate, GameRecordWriter writer, Board board, Piece firstPiece) {
+		this.delegate = delegate;
+		this.writer = writer;
+		record.reset(board, firstPiece);
+	}
+
+	/**
+	 * 途中まで進んだ対局の続きを記録する。
+	 * @param delegate 出力を渡す先
+	 * @param writer 棋譜の書き出し先
+	 * @param start 開始から現在までの棋譜（写して使う）
+	 */
+	RecordingOutput(GameOutput delegate, GameRecordWriter writer, GameRecord start) {
+		this.delegate = delegate;
+		this.writer = writer;
+		record.copyFrom(start);
+	}
+
+	@Override
+	public void print(String msg) {
+		delegate.print(msg);
+	}
+
+	@Override
+	public void printInfo(String msg) {
+		delegate.printInfo(msg);
+	}
+
+	@Override
+	public void printAlert(String msg) {
+		delegate.printAlert(msg);
+	}
+
+	@Override
+	public void printBoard(Board board) {
+		delegate.printBoard(board);
+	}
+
+	@Override
+	public void printMove(Board board, Piece piece, int column, int row, int flips) {
+		record.addMove(row * board.getSquareCount() + column);
+		delegate.printMove(board, piece, column, row, flips);
+	}
+
+	@Override
+	public void printPass(Piece piece) {
+		record.addPass();
+		delegate.printPass(piece);
+	}
+
+	@Override
+	public void printGameOver(Board board) {
+		try {
+			writer.write(record);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		delegate.printGameOver(board);
+	}
+
+	/**
+	 * 記録中の棋譜
+	 */
+	GameRecord getRecord() {
+		return record;
+	}
+
+}
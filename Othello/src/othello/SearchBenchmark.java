@@ -0,0 +1,103 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.util.Random;
+
+/**
+ * 探索のスレッド数ごとの速度を比較する計測用プログラム。<br>
+ * 固定のシードで作成した同じ局面群を、1スレッドと指定したスレッド数でそれぞれ同じ深さまで読み、
+ * 1秒あたりのノード数と、指定の深さに達するまでの時間の短縮率（1スレッドとの比）を出力します。
+ * 併せて、着手の並べ替えを無効にした1スレッドの結果と、最初の着手で枝刈りが起きた割合も出力します。<br>
+ * 引数：マス数 深さ スレッド数 局面数 シード（省略時は 8 9 CPUコア数 8 1）
+ */
+public class SearchBenchmark {
+
+	public static void main(String[] args) {
+		int squareCount = argument(args, 0, 8);
+		int depth = argument(args, 1, 9);
+		int threadCount = argument(args, 2, Runtime.getRuntime().availableProcessors());
+		int positionCount = argument(args, 3, 8);
+		long seed = argument(args, 4, 1);
+
+		Board[] positions = new Board[positionCount];
+		Piece[] sides = new Piece[positionCount];
+		Random random = new Random(seed);
+		for (int index = 0; index < positionCount; index++) {
+			positions[index] = Board.create(squareCount);
+			sides[index] = playRandomly(positions[index], random, squareCount + random.nextInt(squareCount));
+		}
+
+		print(String.format("%dマス・深さ%d・%d局面", squareCount, depth, positionCount));
+		print("スレッド数\t並べ替え\t時間(ms)\tノード数\tノード/秒\t短縮率\t初手枝刈り率");
+		// 1回目はJITの暖機として計測から除く。
+		measure(positions, sides, depth, 1, true);
+		long baseNanos = measure(positions, sides, depth, 1, true)[0];
+		printResult(1, false, measure(positions, sides, depth, 1, false), baseNanos);
+		for (int threads : threadCount == 1 ? new int[] { 1 } : new int[] { 1, threadCount }) {
+			printResult(threads, true, measure(positions, sides, depth, threads, true), baseNanos);
+		}
+	}
+
+	private static void printResult(int threads, boolean moveOrdering, long[] result, long baseNanos) {
+		print(String.format("%d\t%s\t%d\t%d\t%d\t%.2f\t%.3f",
+				threads, moveOrdering ? "有効" : "無効", result[0] / 1_000_000, result[1],
+				result[1] * 1_000_000_000L / Math.max(1, result[0]),
+				(double) baseNanos / result[0],
+				result[2] == 0 ? 0.0 : (double) result[3] / result[2]));
+	}
+
+	/**
+	 * 全局面を指定の深さまで読む。
+	 * @return [0] 合計時間（ナノ秒）、[1] 合計ノード数、[2] 枝刈り回数、[3] うち最初の着手での枝刈り回数
+	 */
+	private static long[] measure(Board[] positions, Piece[] sides, int depth, int threads, boolean moveOrdering) {
+		SearchStrategy strategy = new SearchStrategy(Long.MAX_VALUE / 1_000_000_000L,
+				TranspositionTable.DEFAULT_SIZE_MB, threads);
+		strategy.setMoveOrdering(moveOrdering);
+		long[] result = new long[4];
+		for (int index = 0; index < positions.length; index++) {
+			strategy.clearTable();
+			strategy.search(positions[index], sides[index], depth);
+			result[0] += strategy.getElapsedNanos();
+			result[1] += strategy.getNodes();
+			result[2] += strategy.getCutoffs();
+			result[3] += strategy.getFirstMoveCutoffs();
+		}
+		return result;
+	}
+
+	/**
+	 * 初期配置から指定した手数だけランダムに進める。
+	 * @return 次の手番の駒
+	 */
+	static Piece playRandomly(Board board, Random random, int plies) {
+		board.init();
+		int squareCount = board.getSquareCount();
+		int[] moves = new int[squareCount * squareCount];
+		Piece piece = Piece.BLACK;
+		for (int ply = 0; ply < plies; ply++) {
+			int count = board.legalMoves(piece, moves);
+			if (count == 0) {
+				if (board.legalMoveCount(piece.opponent()) == 0) {
+					break;
+				}
+				piece = piece.opponent();
+				continue;
+			}
+			int move = moves[random.nextInt(count)];
+			board.putPiece(move % squareCount, move / squareCount, piece);
+			board.turnOver(move % squareCount, move / squareCount, piece);
+			piece = piece.opponent();
+		}
+		if (board.legalMoveCount(piece) == 0) {
+			piece = piece.opponent();
+		}
+		return piece;
+	}
+
+	private static int argument(String[] args, int index, int defaultValue) {
+		return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+	}
+
+}
@@ -0,0 +1,662 @@
+package othello;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * αβ法（ネガマックス）で先読みする思考ルーチン。<br>
+ * 反復深化で1手ずつ深く読み、1手あたりの持ち時間を使い切る前に打ち切ります。
+ * 持ち時間を超えた探索の結果は使わず、最後に読み切った深さの最善手を返します。<br>
+ * 読みの途中では盤面を複製せず、{@link Board#makeMove}と{@link Board#unmakeMove}で1つの盤面を進めて戻します。<br>
+ * 読んだ局面の結果は置換表に登録し、別の手順で同じ局面に到達した場合に再利用します。
+ * 置換表の容量はシステムプロパティ「othello.hashSizeMb」でも指定できます。<br>
+ * 各局面では、置換表の最善手・キラー手・ヒストリー値・隅や辺の優先度の順に着手を並べ替え、
+ * 早い段階で枝刈りが起きるようにしています。<br>
+ * 空きマスが指定数以下になったら、{@link EndgameSolver}で最後まで読み切って最善手を選びます
+ * （空きマス数はシステムプロパティ「othello.endgameEmpties」でも指定できます）。<br>
+ * 複数スレッドで探索する場合は、各スレッドが同じ局面を少しずつ異なる順序で読み、
+ * 置換表を共有して互いの結果を利用します（Lazy SMP）。
+ * スレッド数はシステムプロパティ「othello.searchThreads」でも指定できます。
+ */
+public class SearchStrategy implements Strategy {
+
+	// 1手あたりの持ち時間の既定値（ミリ秒）
+	static final long DEFAULT_TIME_LIMIT_MILLIS = 1000;
+	// 終局時の評価値（勝ち/負けの場合はこの値に駒数の差を加える）
+	static final int WIN_SCORE = 100000;
+	// 評価値の上限（αβの初期窓）
+	private static final int INFINITY = 1000000;
+	// 完全読みに切り替える空きマス数の既定値
+	static final int DEFAULT_ENDGAME_EMPTIES = 14;
+	// 8×8以外の盤面で完全読みに切り替える空きマス数の上限（盤面の複製を伴い時間がかかるため）
+	private static final int GENERIC_ENDGAME_EMPTIES = 8;
+
+	// 着手の並べ替えに使う優先度
+	private static final int ORDER_CORNER = 1 << 27;
+	private static final int ORDER_KILLER_FIRST = 1 << 26;
+	private static final int ORDER_KILLER_SECOND = 1 << 25;
+	private static final int ORDER_EDGE = 1 << 21;
+	private static final int ORDER_C_SQUARE = -(1 << 23);
+	private static final int ORDER_X_SQUARE = -(1 << 24);
+	// ヒストリー値の上限（超えたら全体を半分にする）
+	private static final int HISTORY_LIMIT = 1 << 20;
+
+	// 1手あたりの持ち時間（ナノ秒）
+	private final long timeLimitNanos;
+	// 評価関数
+	private final Evaluator evaluator;
+	// 置換表（全スレッドで共有する）
+	private final TranspositionTable table;
+	// スレッドごとの探索処理（[0]は呼び出し元のスレッドで動かす）
+	private final Searcher[] searchers;
+	// 補助スレッド用のプール
+	private ForkJoinPool pool;
+	// 終盤の完全読み
+	private final EndgameSolver solver = new EndgameSolver();
+	// 完全読みに切り替える空きマス数
+	private int endgameEmpties = Integer.getInteger("othello.endgameEmpties", DEFAULT_ENDGAME_EMPTIES);
+
+	// 探索を打ち切る時刻（System.nanoTime基準）
+	private volatile long deadline;
+	// 探索の終了指示
+	private volatile boolean stopped;
+
+	// 読む深さの上限
+	private int depthLimit = Integer.MAX_VALUE;
+
+	// 着手の並べ替えの有効/無効（計測用）
+	private boolean moveOrdering = true;
+
+	// 直前の探索で読んだノード数（全スレッドの合計）
+	private long nodes;
+	// 直前の探索で枝刈りが起きた回数と、そのうち最初の着手で起きた回数
+	private long cutoffs;
+	private long firstMoveCutoffs;
+	// 直前の探索で読み切った深さ
+	private int completedDepth;
+	// 直前の探索にかかった時間（ナノ秒）
+	private long elapsedNanos;
+
+	SearchStrategy() {
+		this(DEFAULT_TIME_LIMIT_MILLIS);
+	}
+
+	SearchStrategy(long timeLimitMillis) {
+		this(timeLimitMillis, Integer.getInteger("othello.hashSizeMb", TranspositionTable.DEFAULT_SIZE_MB));
+	}
+
+	SearchStrategy(long timeLimitMillis, int hashSizeMb) {
+		this(timeLimitMillis, hashSizeMb,
+				Integer.getInteger("othello.searchThreads", Runtime.getRuntime().availableProcessors()));
+	}
+
+	SearchStrategy(long timeLimitMillis, int hashSizeMb, int threadCount) {
+		this(timeLimitMillis, hashSizeMb, threadCount, new BasicEvaluator());
+	}
+
+	/**
+	 * @param evaluator 評価関数（置換表の容量とスレッド数はシステムプロパティか既定値を使う）
+	 */
+	SearchStrategy(Evaluator evaluator) {
+		this(DEFAULT_TIME_LIMIT_MILLIS, Integer.getInteger("othello.hashSizeMb", TranspositionTable.DEFAULT_SIZE_MB),
+				Integer.getInteger("othello.searchThreads", Runtime.getRuntime().availableProcessors()), evaluator);
+	}
+
+	/**
+	 * @param timeLimitMillis 1手あたりの持ち時間（ミリ秒）
+	 * @param hashSizeMb 置換表の容量（MB）
+	 * @param threadCount 探索に使うスレッド数
+	 * @param evaluator 評価関数（複数スレッドから同時に呼び出されます）
+	 */
+	SearchStrategy(long timeLimitMillis, int hashSizeMb, int threadCount, Evaluator evaluator) {
+		if (timeLimitMillis <= 0) {
+			throw new IllegalArgumentException("持ち時間は1ミリ秒以上を指定してください。");
+		}
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("スレッド数は1以上を指定してください。");
+		}
+		this.timeLimitNanos = timeLimitMillis * 1_000_000L;
+		this.table = new TranspositionTable(hashSizeMb);
+		this.evaluator = evaluator;
+		this.searchers = new Searcher[threadCount];
+		for (int index = 0; index < threadCount; index++) {
+			searchers[index] = new Searcher(index);
+		}
+	}
+
+	@Override
+	public int selectMove(Board board, Piece piece) {
+		return search(board, piece, depthLimit);
+	}
+
+	/**
+	 * 持ち時間か指定した深さに達するまで探索し、最善手を求める。
+	 * @param board 盤面オブジェクト
+	 * @param piece 手番の駒
+	 * @param depthLimit 読む深さの上限
+	 * @return 「行番号 × マス数 + 列番号」の値
+	 */
+	int search(Board board, Piece piece, int depthLimit) {
+		long start = System.nanoTime();
+		deadline = start + timeLimitNanos;
+		stopped = false;
+		table.nextGeneration();
+		int empties = board.count(Piece.EMPTY);
+		int maxDepth = Math.min(depthLimit, empties);
+
+		int solverEmpties = board instanceof BitBoard ? endgameEmpties
+				: Math.min(endgameEmpties, GENERIC_ENDGAME_EMPTIES);
+		if (empties <= solverEmpties) {
+			// 終盤は最後まで読み切る。持ち時間内に読み切れなければ通常の探索に切り替える。
+			int bestMove = solver.bestMove(board, piece, start + timeLimitNanos / 2);
+			if (bestMove >= 0) {
+				nodes = solver.getNodes();
+				cutoffs = 0;
+				firstMoveCutoffs = 0;
+				completedDepth = empties;
+				elapsedNanos = System.nanoTime() - start;
+				return bestMove;
+			}
+		}
+
+		// 補助スレッドは盤面の複製を使って並行に読み、結果は置換表を通して共有する。
+		ForkJoinTask<?>[] helpers = new ForkJoinTask<?>[searchers.length];
+		for (int index = 1; index < searchers.length; index++) {
+			Searcher helper = searchers[index];
+			Board copy = board.copy();
+			helpers[index] = helperPool().submit(() -> helper.iterate(copy, piece, maxDepth, start));
+		}
+		int bestMove = searchers[0].iterate(board, piece, maxDepth, start);
+		stopped = true;
+		for (int index = 1; index < searchers.length; index++) {
+			helpers[index].join();
+		}
+
+		nodes = 0;
+		cutoffs = 0;
+		firstMoveCutoffs = 0;
+		for (Searcher searcher : searchers) {
+			nodes += searcher.nodes;
+			cutoffs += searcher.cutoffs;
+			firstMoveCutoffs += searcher.firstMoveCutoffs;
+		}
+		completedDepth = searchers[0].completedDepth;
+		elapsedNanos = System.nanoTime() - start;
+		return bestMove;
+	}
+
+	private synchronized ForkJoinPool helperPool() {
+		if (pool == null) {
+			pool = new ForkJoinPool(searchers.length - 1);
+		}
+		return pool;
+	}
+
+	/**
+	 * 読む深さの上限を設定する（持ち時間より先に上限に達した場合はそこで打ち切る）。
+	 * @param depthLimit 読む深さの上限
+	 */
+	void setDepthLimit(int depthLimit) {
+		if (depthLimit <= 0) {
+			throw new IllegalArgumentException("読む深さは1以上を指定してください。");
+		}
+		this.depthLimit = depthLimit;
+	}
+
+	/**
+	 * 完全読みに切り替える空きマス数を設定する。
+	 * @param endgameEmpties 空きマス数（0の場合は完全読みを行わない）
+	 */
+	void setEndgameEmpties(int endgameEmpties) {
+		this.endgameEmpties = endgameEmpties;
+	}
+
+	/**
+	 * 置換表の登録内容を消去する。
+	 */
+	void clearTable() {
+		table.clear();
+	}
+
+	/**
+	 * 置換表・キラー手・ヒストリー値など、前回までの探索から引き継ぐ状態を全て消去する。<br>
+	 * 対局の開始時に呼び出すと、読む深さを指定した場合は、それまでの対局に関係なく同じ局面から同じ手を選びます。
+	 */
+	void reset() {
+		clearTable();
+		solver.clearTable();
+		for (Searcher searcher : searchers) {
+			searcher.resetOrdering();
+		}
+	}
+
+	/**
+	 * 終局時の評価値
+	 * @return 勝ちなら{@link #WIN_SCORE}以上、負けなら-{@link #WIN_SCORE}以下、引き分けなら0
+	 */
+	static int finalScore(Board board, Piece piece) {
+		int diff = board.count(piece) - board.count(piece.opponent());
+		if (diff > 0) {
+			return WIN_SCORE + diff;
+		}
+		return diff < 0 ? -WIN_SCORE + diff : 0;
+	}
+
+	/**
+	 * マスごとの隅や辺の優先度を求める。<br>
+	 * 隅は最優先、辺は優先し、隅に隣接するマス（相手に隅を与えやすい）は後回しにする。
+	 * @param squareCount 縦と横のマス数
+	 * @return 「行番号 × マス数 + 列番号」を添字とする優先度
+	 */
+	static int[] squarePriors(int squareCount) {
+		int last = squareCount - 1;
+		int[] priors = new int[squareCount * squareCount];
+		for (int row = 0; row < squareCount; row++) {
+			for (int column = 0; column < squareCount; column++) {
+				// 最も近い隅からの距離
+				int columnFromEdge = Math.min(column, last - column);
+				int rowFromEdge = Math.min(row, last - row);
+				int priority = 0;
+				if (columnFromEdge == 0 && rowFromEdge == 0) {
+					priority = ORDER_CORNER;
+				} else if (columnFromEdge == 1 && rowFromEdge == 1) {
+					priority = ORDER_X_SQUARE;
+				} else if (columnFromEdge + rowFromEdge == 1) {
+					priority = ORDER_C_SQUARE;
+				} else if (columnFromEdge == 0 || rowFromEdge == 0) {
+					priority = ORDER_EDGE;
+				}
+				priors[row * squareCount + column] = priority;
+			}
+		}
+		return priors;
+	}
+
+	private static void moveToFront(int[] moves, int count, int move) {
+		for (int index = 0; index < count; index++) {
+			if (moves[index] == move) {
+				System.arraycopy(moves, 0, moves, 1, index);
+				moves[0] = move;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 直前の探索で読んだノード数（全スレッドの合計）
+	 */
+	long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * 直前の探索で、枝刈りのうち最初に読んだ着手で起きた割合
+	 * @return 0.0～1.0（枝刈りがなかった場合は0.0）
+	 */
+	double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+	}
+
+	/**
+	 * 直前の探索で枝刈りが起きた回数
+	 */
+	long getCutoffs() {
+		return cutoffs;
+	}
+
+	/**
+	 * 直前の探索で、最初に読んだ着手で枝刈りが起きた回数
+	 */
+	long getFirstMoveCutoffs() {
+		return firstMoveCutoffs;
+	}
+
+	/**
+	 * 着手の並べ替えの有効/無効を切り替える（並べ替えの効果の計測用）。
+	 */
+	void setMoveOrdering(boolean moveOrdering) {
+		this.moveOrdering = moveOrdering;
+	}
+
+	/**
+	 * 直前の探索で読み切った深さ
+	 */
+	int getCompletedDepth() {
+		return completedDepth;
+	}
+
+	/**
+	 * 直前の探索にかかった時間（ナノ秒）
+	 */
+	long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * 探索に使うスレッド数
+	 */
+	int getThreadCount() {
+		return searchers.length;
+	}
+
+	/**
+	 * 1スレッド分の探索処理。探索中の状態はスレッドごとに持つ。
+	 */
+	private final class Searcher {
+
+		// スレッドの番号（0が呼び出し元のスレッド）
+		private final int id;
+		// 探索中の盤面のマス数
+		private int squareCount;
+		// 探索の深さごとの着手可能なマスの格納先
+		private int[][] moveBuffers = new int[0][];
+		// 探索の深さごとの並べ替え用の優先度の格納先
+		private int[][] orderBuffers = new int[0][];
+		// 探索の深さごとのキラー手（[手数][0]が最新）
+		private int[][] killers = new int[0][];
+		// マスごとのヒストリー値（枝刈りを起こした着手ほど大きい）
+		private int[] history = new int[0];
+		// マスごとの隅や辺の優先度
+		private int[] priors = new int[0];
+		// 持ち時間を超えたか、終了指示を受けたか
+		private boolean timeUp;
+		// 探索したノード数
+		private long nodes;
+		// 枝刈りが起きた回数と、そのうち最初の着手で起きた回数
+		private long cutoffs;
+		private long firstMoveCutoffs;
+		// 最後に読み切った深さ
+		private int completedDepth;
+
+		Searcher(int id) {
+			this.id = id;
+		}
+
+		/**
+		 * 反復深化で探索する。
+		 * @return 最後に読み切った深さでの最善手
+		 */
+		int iterate(Board board, Piece piece, int maxDepth, long start) {
+			timeUp = false;
+			nodes = 0;
+			cutoffs = 0;
+			firstMoveCutoffs = 0;
+			completedDepth = 0;
+			prepareOrdering(board.getSquareCount());
+
+			int[] rootMoves = moveBuffer(0);
+			int rootCount = board.legalMoves(piece, rootMoves);
+			orderMoves(rootMoves, rootCount, 0, TranspositionTable.NO_MOVE);
+			int bestMove = rootMoves[0];
+			if (rootCount == 1 && id == 0) {
+				// 選択肢が１つしかなければ読む必要はない。
+				return bestMove;
+			}
+			// 補助スレッドは読む順序と開始する深さをずらして、別の局面から置換表を埋める。
+			rotate(rootMoves, rootCount, id);
+			int firstDepth = 1 + (id & 1);
+
+			for (int depth = firstDepth; depth <= maxDepth; depth++) {
+				int alpha = -INFINITY;
+				int iterationBest = bestMove;
+				for (int index = 0; index < rootCount; index++) {
+					int move = rootMoves[index];
+					board.makeMove(move % squareCount, move / squareCount, piece);
+					int score = -negamax(board, piece.opponent(), depth - 1, 1, -INFINITY, -alpha);
+					board.unmakeMove();
+					if (timeUp) {
+						break;
+					}
+					if (score > alpha) {
+						alpha = score;
+						iterationBest = move;
+					}
+				}
+				if (timeUp) {
+					// 読み切れなかった深さの結果は使わない。
+					break;
+				}
+				bestMove = iterationBest;
+				completedDepth = depth;
+				// 前回の最善手から読むように並べ替える。
+				moveToFront(rootMoves, rootCount, bestMove);
+
+				// 次の深さは今回以上に時間がかかるため、残り時間が半分を切っていたら打ち切る。
+				if (id == 0 && System.nanoTime() - start > timeLimitNanos / 2) {
+					break;
+				}
+			}
+			return bestMove;
+		}
+
+		/**
+		 * ネガマックス形式のαβ探索
+		 * @param board 盤面オブジェクト
+		 * @param piece 手番の駒
+		 * @param depth 残りの深さ
+		 * @param ply ルートからの手数
+		 * @param alpha 下限
+		 * @param beta 上限
+		 * @return 手番側から見た評価値
+		 */
+		private int negamax(Board board, Piece piece, int depth, int ply, int alpha, int beta) {
+			nodes++;
+			if (stopped || System.nanoTime() >= deadline) {
+				timeUp = true;
+				return 0;
+			}
+			if (depth == 0) {
+				return evaluator.evaluate(board, piece);
+			}
+
+			// 置換表に十分な深さの結果があれば、それを使う。
+			long key = board.getHash() ^ (piece.is(Piece.WHITE) ? Zobrist.WHITE_TO_MOVE : 0L);
+			long entry = table.probe(key);
+			int hashMove = TranspositionTable.NO_MOVE;
+			if (entry != 0L) {
+				hashMove = TranspositionTable.move(entry);
+				if (TranspositionTable.depth(entry) >= depth) {
+					int score = TranspositionTable.score(entry);
+					switch (TranspositionTable.bound(entry)) {
+					case TranspositionTable.EXACT:
+						return score;
+					case TranspositionTable.LOWER_BOUND:
+						alpha = Math.max(alpha, score);
+						break;
+					default:
+						beta = Math.min(beta, score);
+					}
+					if (alpha >= beta) {
+						return score;
+					}
+				}
+			}
+			int originalAlpha = alpha;
+
+			int[] moves = moveBuffer(ply);
+			int count = board.legalMoves(piece, moves);
+			if (count == 0) {
+				if (board.legalMoveCount(piece.opponent()) == 0) {
+					// 双方置けない場合は終局
+					return finalScore(board, piece);
+				}
+				// パスは深さを消費しない。
+				return -negamax(board, piece.opponent(), depth, ply + 1, -beta, -alpha);
+			}
+
+			// 置換表の最善手・キラー手・ヒストリー値の順に読む。
+			orderMoves(moves, count, ply, hashMove);
+
+			int best = -INFINITY;
+			int bestMove = moves[0];
+			for (int index = 0; index < count; index++) {
+				int move = moves[index];
+				board.makeMove(move % squareCount, move / squareCount, piece);
+				int score = -negamax(board, piece.opponent(), depth - 1, ply + 1, -beta, -alpha);
+				board.unmakeMove();
+				if (timeUp) {
+					return 0;
+				}
+				if (score > best) {
+					best = score;
+					bestMove = moves[index];
+					if (score > alpha) {
+						alpha = score;
+						if (alpha >= beta) {
+							recordCutoff(moves[index], index, depth, ply);
+							break;
+						}
+					}
+				}
+			}
+
+			int bound;
+			if (best <= originalAlpha) {
+				bound = TranspositionTable.UPPER_BOUND;
+			} else if (best >= beta) {
+				bound = TranspositionTable.LOWER_BOUND;
+			} else {
+				bound = TranspositionTable.EXACT;
+			}
+			table.store(key, best, depth, bound, bestMove);
+			return best;
+		}
+
+		/**
+		 * 枝刈りを起こした着手をキラー手とヒストリー値に反映する。
+		 */
+		private void recordCutoff(int move, int index, int depth, int ply) {
+			cutoffs++;
+			if (index == 0) {
+				firstMoveCutoffs++;
+			}
+			int[] killer = killerSlot(ply);
+			if (killer[0] != move) {
+				killer[1] = killer[0];
+				killer[0] = move;
+			}
+			history[move] += depth * depth;
+			if (history[move] > HISTORY_LIMIT) {
+				for (int square = 0; square < history.length; square++) {
+					history[square] >>= 1;
+				}
+			}
+		}
+
+		/**
+		 * 着手を優先度の高い順に並べ替える。
+		 * @param moves 着手可能なマス
+		 * @param count 着手可能なマスの数
+		 * @param ply ルートからの手数
+		 * @param hashMove 置換表の最善手（最優先で読む）
+		 */
+		private void orderMoves(int[] moves, int count, int ply, int hashMove) {
+			if (!moveOrdering) {
+				return;
+			}
+			int[] killer = killerSlot(ply);
+			int[] order = orderBuffer(ply);
+			for (int index = 0; index < count; index++) {
+				int move = moves[index];
+				int priority;
+				if (move == hashMove) {
+					priority = Integer.MAX_VALUE;
+				} else {
+					priority = priors[move] + history[move];
+					if (move == killer[0]) {
+						priority += ORDER_KILLER_FIRST;
+					} else if (move == killer[1]) {
+						priority += ORDER_KILLER_SECOND;
+					}
+				}
+				// 挿入ソート（着手数は多くないため）
+				int position = index;
+				while (position > 0 && order[position - 1] < priority) {
+					order[position] = order[position - 1];
+					moves[position] = moves[position - 1];
+					position--;
+				}
+				order[position] = priority;
+				moves[position] = move;
+			}
+		}
+
+		/**
+		 * 盤面のマス数に合わせて、並べ替え用の表を準備する。<br>
+		 * ヒストリー値は前回の探索の結果を半分にして引き継ぐ。
+		 */
+		private void prepareOrdering(int squareCount) {
+			this.squareCount = squareCount;
+			if (priors.length != squareCount * squareCount) {
+				priors = squarePriors(squareCount);
+				history = new int[squareCount * squareCount];
+				killers = new int[0][];
+			}
+			for (int square = 0; square < history.length; square++) {
+				history[square] >>= 1;
+			}
+			for (int[] killer : killers) {
+				killer[0] = TranspositionTable.NO_MOVE;
+				killer[1] = TranspositionTable.NO_MOVE;
+			}
+		}
+
+		/**
+		 * キラー手とヒストリー値を消去する。
+		 */
+		private void resetOrdering() {
+			Arrays.fill(history, 0);
+			killers = new int[0][];
+		}
+
+		private int[] killerSlot(int ply) {
+			if (ply >= killers.length) {
+				int from = killers.length;
+				killers = Arrays.copyOf(killers, ply + 8);
+				for (int index = from; index < killers.length; index++) {
+					killers[index] = new int[] { TranspositionTable.NO_MOVE, TranspositionTable.NO_MOVE };
+				}
+			}
+			return killers[ply];
+		}
+
+		private int[] orderBuffer(int ply) {
+			if (ply >= orderBuffers.length) {
+				orderBuffers = Arrays.copyOf(orderBuffers, ply + 8);
+			}
+			int[] buffer = orderBuffers[ply];
+			if (buffer == null || buffer.length < squareCount * squareCount) {
+				buffer = new int[squareCount * squareCount];
+				orderBuffers[ply] = buffer;
+			}
+			return buffer;
+		}
+
+		/**
+		 * 指定した手数の着手可能なマスの格納先を取得する（足りなければ確保する）。
+		 */
+		private int[] moveBuffer(int ply) {
+			if (ply >= moveBuffers.length) {
+				moveBuffers = Arrays.copyOf(moveBuffers, ply + 8);
+			}
+			int[] buffer = moveBuffers[ply];
+			if (buffer == null || buffer.length < squareCount * squareCount) {
+				buffer = new int[squareCount * squareCount];
+				moveBuffers[ply] = buffer;
+			}
+			return buffer;
+		}
+
+		private void rotate(int[] moves, int count, int distance) {
+			if (count == 0 || distance % count == 0) {
+				return;
+			}
+			int[] rotated = Arrays.copyOf(moves, count);
+			for (int index = 0; index < count; index++) {
+				moves[index] = rotated[(index + distance) % count];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package othello;
+
+/**
+ * 出来事を集計する購読者。<br>
+ * 集計値は {@link GameEventBus#close()} で配信を終了した後に参照してください。
+ */
+public class StatsEventSink implements GameEventBus.Subscriber {
+
+	private long games;
+	private long blackWins;
+	private long whiteWins;
+	private long draws;
+	// [0] 黒、[1] 白
+	private final long[] moves = new long[2];
+	private final long[] passes = new long[2];
+	private final long[] flips = new long[2];
+	// 1手で裏返した駒の最大数
+	private int maxFlips;
+
+	@Override
+	public void onEvent(GameEvent event) {
+		switch (event.getType()) {
+		case MOVE:
+			int side = event.getPiece().is(Piece.BLACK) ? 0 : 1;
+			moves[side]++;
+			flips[side] += event.getFlips();
+			maxFlips = Math.max(maxFlips, event.getFlips());
+			break;
+		case PASS:
+			passes[event.getPiece().is(Piece.BLACK) ? 0 : 1]++;
+			break;
+		case GAME_OVER:
+			games++;
+			if (event.getBlackCount() > event.getWhiteCount()) {
+				blackWins++;
+			} else if (event.getBlackCount() < event.getWhiteCount()) {
+				whiteWins++;
+			} else {
+				draws++;
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	long getGames() {
+		return games;
+	}
+
+	long getMoves(Piece piece) {
+		return moves[piece.is(Piece.BLACK) ? 0 : 1];
+	}
+
+	long getFlips(Piece piece) {
+		return flips[piece.is(Piece.BLACK) ? 0 : 1];
+	}
+
+	/**
+	 * 集計結果を出力する。
+	 */
+	void print() {
+		Utils.print(String.format("集計：%d局（黒%d勝・白%d勝・引き分け%d）", games, blackWins, whiteWins, draws));
+		for (Piece piece : new Piece[] { Piece.BLACK, Piece.WHITE }) {
+			int side = piece.is(Piece.BLACK) ? 0 : 1;
+			Utils.print(String.format("%s：%d手・パス%d回・裏返した駒%d（1手平均%.2f）", piece.getState(), moves[side],
+					passes[side], flips[side], moves[side] == 0 ? 0.0 : (double) flips[side] / moves[side]));
+		}
+		Utils.print(String.format("1手で裏返した駒の最大数：%d", maxFlips));
+	}
+
+}
@@ -0,0 +1,17 @@
+package othello;
+
+/**
+ * CPUが配置するマスを決める思考ルーチン。
+ */
+public interface Strategy {
+
+	/**
+	 * 配置するマスを選ぶ。<br>
+	 * 着手可能なマスが１つ以上ある状態で呼び出してください。
+	 * @param board 盤面オブジェクト
+	 * @param piece 配置する駒
+	 * @return 「行番号 × マス数 + 列番号」の値
+	 */
+	int selectMove(Board board, Piece piece);
+
+}
@@ -0,0 +1,118 @@
+package othello;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 名前で思考ルーチンを作成するための登録簿。<br>
+ * 思考ルーチンは「名前」または「名前:引数」の形式で指定します。登録済みの名前：
+ * <pre>
+ * random        ランダムに選ぶ
+ * greedy        裏返せる駒が最も多いマスを選ぶ
+ * search:深さ   指定の深さまで読むαβ探索（1スレッド、深さと同じ空きマス数から完全読み）
+ * pattern:深さ  search と同じ探索で、重みファイル（{@link PatternEvaluator#loadFromProperties}）の評価関数を使う
+ * </pre>
+ * 作成した思考ルーチンは1スレッドから使う前提です。
+ */
+final public class StrategyRegistry {
+
+	/**
+	 * 思考ルーチンの作成処理。
+	 */
+	@FunctionalInterface
+	interface Factory {
+		/**
+		 * @param argument 「:」以降の引数（無い場合はnull）
+		 * @param random 思考ルーチンで使う乱数生成器
+		 * @return 思考ルーチン
+		 */
+		Strategy create(String argument, Random random);
+	}
+
+	// 探索の思考ルーチンで使う置換表の容量（MB）
+	private static final int SEARCH_HASH_SIZE_MB = 1;
+
+	// 名前 → 作成処理
+	private static final Map<String, Factory> FACTORIES = new LinkedHashMap<>();
+	// 重みファイルから読み込んだ評価関数（最初に使う時に読み込む）
+	private static PatternEvaluator patternEvaluator;
+
+	static {
+		register("random", (argument, random) -> new RandomStrategy(random));
+		register("greedy", (argument, random) -> new GreedyStrategy(random));
+		register("search", (argument, random) -> search("search", argument, new BasicEvaluator()));
+		register("pattern", (argument, random) -> search("pattern", argument, patternEvaluator()));
+	}
+
+	/**
+	 * 指定の深さまで読む探索の思考ルーチンを作成する。
+	 */
+	private static Strategy search(String name, String argument, Evaluator evaluator) {
+		if (argument == null) {
+			throw new IllegalArgumentException(name + " には読む深さを「" + name + ":深さ」の形式で指定してください。");
+		}
+		int depth = Integer.parseInt(argument);
+		// 対局を並行に進めるため、探索自体は1スレッドで行う。
+		SearchStrategy strategy = new SearchStrategy(SearchStrategy.DEFAULT_TIME_LIMIT_MILLIS,
+				SEARCH_HASH_SIZE_MB, 1, evaluator);
+		strategy.setDepthLimit(depth);
+		// 読む深さと同じ空きマス数から完全読みに切り替える。
+		strategy.setEndgameEmpties(depth);
+		return strategy;
+	}
+
+	private static synchronized PatternEvaluator patternEvaluator() {
+		if (patternEvaluator == null) {
+			patternEvaluator = PatternEvaluator.loadFromProperties();
+			if (patternEvaluator == null) {
+				throw new IllegalArgumentException("pattern には重みファイル（othello.weights）が必要です。");
+			}
+		}
+		return patternEvaluator;
+	}
+
+	private StrategyRegistry() {
+	}
+
+	/**
+	 * 思考ルーチンを登録する。
+	 * @param name 名前（「:」を含まないこと）
+	 * @param factory 作成処理
+	 */
+	static synchronized void register(String name, Factory factory) {
+		if (name.indexOf(':') >= 0) {
+			throw new IllegalArgumentException("名前に「:」は使えません：" + name);
+		}
+		FACTORIES.put(name, factory);
+	}
+
+	/**
+	 * 指定に従って思考ルーチンを作成する。
+	 * @param spec 「名前」または「名前:引数」
+	 * @param random 思考ルーチンで使う乱数生成器
+	 * @return 思考ルーチン
+	 */
+	static Strategy create(String spec, Random random) {
+		int separator = spec.indexOf(':');
+		String name = separator < 0 ? spec : spec.substring(0, separator);
+		String argument = separator < 0 ? null : spec.substring(separator + 1);
+		Factory factory;
+		synchronized (StrategyRegistry.class) {
+			factory = FACTORIES.get(name);
+		}
+		if (factory == null) {
+			throw new IllegalArgumentException("登録されていない思考ルーチンです：" + spec + "（登録済み：" + names() + "）");
+		}
+		return factory.create(argument, random);
+	}
+
+	/**
+	 * 登録済みの名前
+	 */
+	static synchronized Set<String> names() {
+		return new LinkedHashMap<>(FACTORIES).keySet();
+	}
+
+}
@@ -0,0 +1,391 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登録済みの思考ルーチン同士を対局させ、Eloレーティングを求める対局大会。<br>
+ * 対戦の組み合わせは総当たり（roundrobin）か、最初の思考ルーチンと残り全員の対戦（gauntlet）から選べます。
+ * 1組の対局は同じランダムな序盤から黒白を入れ替えて2局行い、先手・後手の有利不利を打ち消します。<br>
+ * 対局は全スレッドで対局番号を分け合って並行に進め、対局の一覧は作成しないため、数百万局でも使用メモリは増えません。<br>
+ * レーティングは引き分けを0.5勝として Bradley-Terry モデルで求め、全員の平均を0とします。
+ * 誤差は各思考ルーチンの勝率の標準誤差から求めた95%信頼区間です。<br>
+ * 引数：roundrobin|gauntlet マス数(カンマ区切り) 組数 スレッド数 シード 思考ルーチン…
+ * （例：roundrobin 6,8 100 8 1 random greedy search:2）
+ */
+public class Tournament {
+
+	// 序盤にランダムに打つ手数
+	private static final int OPENING_PLIES = 4;
+	// スレッドが一度に取得する対局の組数
+	private static final int BATCH_SIZE = 16;
+	// 途中経過を出力する間隔（秒）
+	private static final int PROGRESS_INTERVAL_SECONDS = 10;
+	// 結果の添字
+	private static final int WIN = 0;
+	private static final int DRAW = 1;
+	private static final int LOSS = 2;
+
+	private final int[] squareCounts;
+	private final String[] specs;
+	// 対戦の組み合わせ（[0]と[1]が思考ルーチンの番号）
+	private final int[][] matchups;
+	private final long pairsPerMatchup;
+	private final int threadCount;
+	private final long seed;
+
+	// 次に対局する組の番号
+	private final AtomicLong nextPair = new AtomicLong();
+	// 終わった対局数
+	private final AtomicLong finishedGames = new AtomicLong();
+
+	/**
+	 * @param gauntlet 最初の思考ルーチンと残り全員の対戦ならtrue、総当たりならfalse
+	 * @param squareCounts 対局するマス数
+	 * @param specs 思考ルーチンの指定（{@link StrategyRegistry}）
+	 * @param pairsPerMatchup 組み合わせ・マス数ごとの対局の組数（1組2局）
+	 * @param threadCount スレッド数
+	 * @param seed 乱数のシード
+	 */
+	Tournament(boolean gauntlet, int[] squareCounts, String[] specs, long pairsPerMatchup, int threadCount, long seed) {
+		if (specs.length < 2) {
+			throw new IllegalArgumentException("思考ルーチンは2つ以上指定してください。");
+		}
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("スレッド数は1以上を指定してください。");
+		}
+		for (int squareCount : squareCounts) {
+			if (squareCount < 4 || squareCount > 50 || squareCount % 2 == 1) {
+				throw new IllegalArgumentException("マス数は4以上50以下の偶数を指定してください：" + squareCount);
+			}
+		}
+		// 指定が正しいかを対局の開始前に確かめる。
+		for (String spec : specs) {
+			StrategyRegistry.create(spec, new Random());
+		}
+		List<int[]> pairs = new ArrayList<>();
+		for (int first = 0; first < (gauntlet ? 1 : specs.length); first++) {
+			for (int second = first + 1; second < specs.length; second++) {
+				pairs.add(new int[] { first, second });
+			}
+		}
+		this.squareCounts = squareCounts;
+		this.specs = specs;
+		this.matchups = pairs.toArray(new int[0][]);
+		this.pairsPerMatchup = pairsPerMatchup;
+		this.threadCount = threadCount;
+		this.seed = seed;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		if (args.length < 7 || !(args[0].equals("roundrobin") || args[0].equals("gauntlet"))) {
+			print("引数：roundrobin|gauntlet マス数(カンマ区切り) 組数 スレッド数 シード 思考ルーチン…");
+			print("登録済みの思考ルーチン：" + StrategyRegistry.names());
+			return;
+		}
+		int[] squareCounts = Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray();
+		Tournament tournament = new Tournament(args[0].equals("gauntlet"), squareCounts,
+				Arrays.copyOfRange(args, 5, args.length), Long.parseLong(args[2]),
+				Integer.parseInt(args[3]), Long.parseLong(args[4]));
+		tournament.run().print();
+	}
+
+	/**
+	 * 全対局を行う。
+	 * @return 集計結果
+	 */
+	Result run() throws InterruptedException {
+		nextPair.set(0);
+		finishedGames.set(0);
+		long totalGames = totalPairs() * 2;
+		long start = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<long[][][][]>> futures = new ArrayList<>();
+			for (int index = 0; index < threadCount; index++) {
+				futures.add(executor.submit(this::playPairs));
+			}
+			Result total = new Result(squareCounts, specs);
+			for (Future<long[][][][]> future : futures) {
+				while (true) {
+					try {
+						total.add(future.get(PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS));
+						break;
+					} catch (TimeoutException e) {
+						long finished = finishedGames.get();
+						print(String.format("%d/%d局（%.1f局/秒）", finished, totalGames,
+								finished * 1_000_000_000.0 / (System.nanoTime() - start)));
+					}
+				}
+			}
+			total.elapsedNanos = System.nanoTime() - start;
+			return total;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("対局中にエラーが発生しました。", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private long totalPairs() {
+		return squareCounts.length * matchups.length * pairsPerMatchup;
+	}
+
+	/**
+	 * 組の番号をまとめて取得して、全組が終わるまで対局する（スレッドごとに呼び出す）。
+	 * @return [マス数][思考ルーチン][相手][勝/分/負] の対局数
+	 */
+	private long[][][][] playPairs() {
+		long[][][][] results = new long[squareCounts.length][specs.length][specs.length][3];
+		Random random = new Random();
+		// 思考ルーチンはスレッド内で使い回す。
+		Strategy[] strategies = new Strategy[specs.length];
+		for (int index = 0; index < specs.length; index++) {
+			strategies[index] = StrategyRegistry.create(specs[index], random);
+		}
+		long totalPairs = totalPairs();
+		long pairsPerSize = matchups.length * pairsPerMatchup;
+		int[] opening = new int[OPENING_PLIES];
+		while (true) {
+			long first = nextPair.getAndAdd(BATCH_SIZE);
+			if (first >= totalPairs) {
+				break;
+			}
+			long last = Math.min(totalPairs, first + BATCH_SIZE);
+			for (long pair = first; pair < last; pair++) {
+				int sizeIndex = (int) (pair / pairsPerSize);
+				int[] matchup = matchups[(int) (pair % pairsPerSize / pairsPerMatchup)];
+				int squareCount = squareCounts[sizeIndex];
+
+				// 組ごとにシードを決めて、同じ序盤から黒白を入れ替えて2局行う。
+				long pairSeed = mixSeed(seed * 0x9E3779B97F4A7C15L + pair);
+				random.setSeed(pairSeed);
+				int openingPlies = randomOpening(squareCount, random, opening);
+				for (int swap = 0; swap < 2; swap++) {
+					int black = matchup[swap];
+					int white = matchup[1 - swap];
+					random.setSeed(mixSeed(pairSeed + swap + 1));
+					// 前の対局の置換表などが着手に影響しないように、探索の状態を消去する。
+					resetSearch(strategies[black]);
+					resetSearch(strategies[white]);
+					int difference = play(squareCount, opening, openingPlies,
+							strategies[black], strategies[white]);
+					int outcome = difference > 0 ? WIN : difference < 0 ? LOSS : DRAW;
+					results[sizeIndex][black][white][outcome]++;
+					results[sizeIndex][white][black][LOSS - outcome]++;
+				}
+				finishedGames.addAndGet(2);
+			}
+		}
+		return results;
+	}
+
+	private static void resetSearch(Strategy strategy) {
+		if (strategy instanceof SearchStrategy) {
+			((SearchStrategy) strategy).reset();
+		}
+	}
+
+	/**
+	 * ランダムな序盤の手順を作成する。
+	 * @return 手数
+	 */
+	private static int randomOpening(int squareCount, Random random, int[] opening) {
+		Board board = Board.create(squareCount);
+		board.init();
+		int[] moves = new int[squareCount * squareCount];
+		Piece piece = Piece.BLACK;
+		for (int ply = 0; ply < opening.length; ply++) {
+			int count = board.legalMoves(piece, moves);
+			if (count == 0) {
+				return ply;
+			}
+			int move = moves[random.nextInt(count)];
+			board.putPiece(move % squareCount, move / squareCount, piece);
+			board.turnOver(move % squareCount, move / squareCount, piece);
+			opening[ply] = move;
+			piece = piece.opponent();
+		}
+		return opening.length;
+	}
+
+	/**
+	 * 序盤の手順を再現してから最後まで対局する。
+	 * @return 駒数の差（黒 - 白）
+	 */
+	private static int play(int squareCount, int[] opening, int openingPlies, Strategy black, Strategy white) {
+		Board board = Board.create(squareCount);
+		board.init();
+		GameSession session = new GameSession(board, new Player("黒", Piece.BLACK, true, black),
+				new Player("白", Piece.WHITE, true, white), GameOutput.NONE);
+		for (int ply = 0; ply < openingPlies && !session.isOver(); ply++) {
+			session.play(opening[ply] % squareCount, opening[ply] / squareCount);
+		}
+		while (!session.isOver()) {
+			session.playAutomatically();
+		}
+		return board.count(Piece.BLACK) - board.count(Piece.WHITE);
+	}
+
+	/**
+	 * 対局大会の集計結果。
+	 */
+	static final class Result {
+
+		private final int[] squareCounts;
+		private final String[] specs;
+		// [マス数][思考ルーチン][相手][勝/分/負] の対局数
+		private final long[][][][] results;
+		private long elapsedNanos;
+
+		Result(int[] squareCounts, String[] specs) {
+			this.squareCounts = squareCounts;
+			this.specs = specs;
+			this.results = new long[squareCounts.length][specs.length][specs.length][3];
+		}
+
+		private void add(long[][][][] other) {
+			for (int size = 0; size < results.length; size++) {
+				for (int player = 0; player < specs.length; player++) {
+					for (int opponent = 0; opponent < specs.length; opponent++) {
+						for (int outcome = 0; outcome < 3; outcome++) {
+							results[size][player][opponent][outcome] += other[size][player][opponent][outcome];
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * 全マス数を合計した対局数
+		 * @return [思考ルーチン][相手][勝/分/負]
+		 */
+		long[][][] total() {
+			long[][][] total = new long[specs.length][specs.length][3];
+			for (long[][][] size : results) {
+				for (int player = 0; player < specs.length; player++) {
+					for (int opponent = 0; opponent < specs.length; opponent++) {
+						for (int outcome = 0; outcome < 3; outcome++) {
+							total[player][opponent][outcome] += size[player][opponent][outcome];
+						}
+					}
+				}
+			}
+			return total;
+		}
+
+		long getGames() {
+			long games = 0;
+			for (long[][] player : total()) {
+				for (long[] opponent : player) {
+					games += opponent[WIN] + opponent[DRAW] + opponent[LOSS];
+				}
+			}
+			return games / 2;
+		}
+
+		void print() {
+			for (int size = 0; size < squareCounts.length; size++) {
+				printTable(squareCounts[size] + "マス", results[size]);
+			}
+			if (squareCounts.length > 1) {
+				printTable("全マス数", total());
+			}
+			long games = getGames();
+			Utils.print(String.format("合計%d局・%d ms（%.1f局/秒）", games, elapsedNanos / 1_000_000,
+					games * 1_000_000_000.0 / Math.max(1, elapsedNanos)));
+		}
+
+		private void printTable(String title, long[][][] table) {
+			double[] ratings = ratings(table);
+			Utils.print("【" + title + "】");
+			Utils.print("思考ルーチン\t対局数\t勝\t分\t負\t勝率\tElo\t95%信頼区間");
+			for (int player = 0; player < specs.length; player++) {
+				long wins = 0;
+				long draws = 0;
+				long losses = 0;
+				for (long[] opponent : table[player]) {
+					wins += opponent[WIN];
+					draws += opponent[DRAW];
+					losses += opponent[LOSS];
+				}
+				long games = wins + draws + losses;
+				double score = games == 0 ? 0.5 : (wins + draws * 0.5) / games;
+				Utils.print(String.format("%s\t%d\t%d\t%d\t%d\t%.1f%%\t%+.0f\t±%.0f", specs[player], games,
+						wins, draws, losses, score * 100, ratings[player], errorMargin(wins, draws, games)));
+			}
+		}
+
+		/**
+		 * Bradley-Terry モデル（引き分けは0.5勝）でレーティングを求める。<br>
+		 * 全勝・全敗でも値が発散しないよう、対戦した組み合わせごとに仮想の引き分けを1局加えます。
+		 * @return 平均を0としたEloレーティング
+		 */
+		static double[] ratings(long[][][] table) {
+			int count = table.length;
+			double[] strengths = new double[count];
+			Arrays.fill(strengths, 1.0);
+			for (int iteration = 0; iteration < 1000; iteration++) {
+				double maxChange = 0;
+				for (int player = 0; player < count; player++) {
+					double score = 0;
+					double denominator = 0;
+					for (int opponent = 0; opponent < count; opponent++) {
+						long[] result = table[player][opponent];
+						long games = result[WIN] + result[DRAW] + result[LOSS];
+						if (opponent == player || games == 0) {
+							continue;
+						}
+						score += result[WIN] + result[DRAW] * 0.5 + 0.5;
+						denominator += (games + 1) / (strengths[player] + strengths[opponent]);
+					}
+					if (denominator > 0) {
+						double updated = score / denominator;
+						maxChange = Math.max(maxChange, Math.abs(Math.log(updated / strengths[player])));
+						strengths[player] = updated;
+					}
+				}
+				if (maxChange < 1e-9) {
+					break;
+				}
+			}
+			double[] ratings = new double[count];
+			double mean = 0;
+			for (int player = 0; player < count; player++) {
+				ratings[player] = 400 * Math.log10(strengths[player]);
+				mean += ratings[player] / count;
+			}
+			for (int player = 0; player < count; player++) {
+				ratings[player] -= mean;
+			}
+			return ratings;
+		}
+
+		/**
+		 * 勝率の標準誤差から、Eloの95%信頼区間の幅を求める。
+		 */
+		static double errorMargin(long wins, long draws, long games) {
+			if (games == 0) {
+				return Double.POSITIVE_INFINITY;
+			}
+			double score = (wins + draws * 0.5) / games;
+			double variance = (wins + draws * 0.25) / games - score * score;
+			double standardError = Math.sqrt(Math.max(variance, 0) / games);
+			// 勝率0%・100%付近では傾きが発散するため、半局分だけ内側に寄せる。
+			double clamped = Math.min(Math.max(score, 0.5 / games), 1 - 0.5 / games);
+			return 1.96 * standardError * 400 / (Math.log(10) * clamped * (1 - clamped));
+		}
+	}
+
+}
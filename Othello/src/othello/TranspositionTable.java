@@ -0,0 +1,147 @@
+package othello;
+
+import java.util.Arrays;
+
+/**
+ * 探索済みの局面の結果を保持する置換表。<br>
+ * 局面のハッシュ値と、評価値・深さ・評価値の種類・最善手を1つのlong値に詰めた結果を
+ * プリミティブ配列で保持するため、登録時にオブジェクトを作成しません。<br>
+ * 2エントリで1組とし、1つ目は深く読んだ結果を優先して残し（深さ優先）、
+ * 2つ目は常に最新の結果で上書きします。<br>
+ * 複数スレッドから同時に使えるよう、ハッシュ値は結果とのXORで格納します。
+ * 書き込みが競合して2つの配列の値が食い違った場合は、一致しないエントリとして無視されます。
+ */
+public class TranspositionTable {
+
+	// 置換表のサイズの既定値（MB）
+	static final int DEFAULT_SIZE_MB = 16;
+
+	// 評価値の種類
+	static final int EXACT = 0;
+	static final int LOWER_BOUND = 1;
+	static final int UPPER_BOUND = 2;
+
+	// 最善手なし
+	static final int NO_MOVE = -1;
+
+	// 登録済みを表すビット（結果が0にならないようにする）
+	private static final long VALID = 1L << 31;
+	// 1エントリあたりのバイト数（ハッシュ値と結果のlong値2つ分）
+	private static final int ENTRY_BYTES = 16;
+
+	// 局面のハッシュ値 ^ 結果
+	private final long[] keys;
+	// 結果（下位から 最善手+1:16bit、深さ:8bit、種類:2bit、世代:5bit、登録済み:1bit、評価値:32bit）
+	private final long[] entries;
+	// 添字のマスク（エントリ数 - 1）
+	private final int mask;
+	// 探索の世代（古い世代の結果は深さに関係なく上書きする）
+	private int generation;
+
+	/**
+	 * 指定した容量以内で置換表を作成します。
+	 * @param megabytes 容量（MB）。エントリ数は2の累乗に切り下げます。
+	 */
+	TranspositionTable(int megabytes) {
+		if (megabytes <= 0) {
+			throw new IllegalArgumentException("置換表のサイズは1MB以上を指定してください。");
+		}
+		long capacity = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+		// 配列の上限を超えないようにする。
+		int size = (int) Math.min(capacity, 1 << 30);
+		this.keys = new long[size];
+		this.entries = new long[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * 新しい探索を開始する際に呼び出す。
+	 */
+	void nextGeneration() {
+		generation = (generation + 1) & 0x1f;
+	}
+
+	/**
+	 * 局面の結果を取得する。
+	 * @param key 局面のハッシュ値
+	 * @return 結果（登録されていない場合は0）
+	 */
+	long probe(long key) {
+		int index = (int) key & mask & ~1;
+		for (int slot = index; slot <= index + 1; slot++) {
+			long entry = entries[slot];
+			if (entry != 0L && (keys[slot] ^ entry) == key) {
+				return entry;
+			}
+		}
+		return 0L;
+	}
+
+	/**
+	 * 局面の結果を登録する。
+	 * @param key 局面のハッシュ値
+	 * @param score 評価値
+	 * @param depth 読んだ深さ
+	 * @param bound 評価値の種類
+	 * @param move 最善手（なければ{@link #NO_MOVE}）
+	 */
+	void store(long key, int score, int depth, int bound, int move) {
+		long entry = pack(score, depth, bound, move, generation);
+		int index = (int) key & mask & ~1;
+		long current = entries[index];
+		// 同じ局面・古い世代・より深い結果の場合は深さ優先の枠を使う。
+		if ((keys[index] ^ current) == key || current == 0
+				|| generation(current) != generation || depth >= depth(current)) {
+			entries[index] = entry;
+			keys[index] = key ^ entry;
+			return;
+		}
+		entries[index + 1] = entry;
+		keys[index + 1] = key ^ entry;
+	}
+
+	/**
+	 * 登録内容をすべて消去する。
+	 */
+	void clear() {
+		Arrays.fill(keys, 0L);
+		Arrays.fill(entries, 0L);
+	}
+
+	/**
+	 * エントリ数
+	 */
+	int capacity() {
+		return keys.length;
+	}
+
+	private static long pack(int score, int depth, int bound, int move, int generation) {
+		return ((move + 1) & 0xffffL)
+				| ((long) (depth & 0xff) << 16)
+				| ((long) bound << 24)
+				| ((long) generation << 26)
+				| VALID
+				| ((long) score << 32);
+	}
+
+	static int score(long entry) {
+		return (int) (entry >> 32);
+	}
+
+	static int depth(long entry) {
+		return (int) (entry >>> 16) & 0xff;
+	}
+
+	static int bound(long entry) {
+		return (int) (entry >>> 24) & 0x3;
+	}
+
+	static int move(long entry) {
+		return (int) (entry & 0xffff) - 1;
+	}
+
+	private static int generation(long entry) {
+		return (int) (entry >>> 26) & 0x1f;
+	}
+
+}
@@ -1,5 +1,7 @@
 package othello;
 
+import java.util.SplittableRandom;
+
 final public class Utils {
 
 	private Utils() {
@@ -186,6 +188,16 @@ final public class Utils {
 		return (int) (Math.random() * (maxNumber));
 	}
 
+	/**
+	 * 連番のシードから、互いに相関のない乱数のシードを求める。<br>
+	 * {@link java.util.Random} は連番のシードを十分にかき混ぜないため、そのまま使うと最初の乱数が偏ります。
+	 * @param seed 元のシード（「シード + 対局番号」など）
+	 * @return かき混ぜたシード
+	 */
+	static long mixSeed(long seed) {
+		return new SplittableRandom(seed).nextLong();
+	}
+
 
 	/**
 	 * 引数が行番号または列番号として有効な値がどうかを確認する処理。<br>
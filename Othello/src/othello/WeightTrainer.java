@@ -0,0 +1,319 @@
+package othello;
+
+import static othello.Utils.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 自己対局の結果から {@link PatternEvaluator} の重みを学習し、重みファイルを書き出す。<br>
+ * 対局は一定数ごとの回に分け、各回の中では全スレッドで対局番号を分け合って並行に進めます。
+ * 対局は序盤のランダムな数手の後、その時点の重み（最初の回は {@link BasicEvaluator}）を使った浅い探索で打ち、
+ * 各局面に「最終的な駒数の差」を正解として付けます（黒番から見た局面と、白番から見た局面の両方を使います）。<br>
+ * 学習は最小二乗法の勾配法で、局面ごとの誤差をスレッドごとの集計に加えるだけで局面は保存しないため、
+ * 数千万局面でも使用メモリは重みの配列の分（スレッド数 × 段階数 × {@link PatternEvaluator#getWeightsPerPhase()}）だけです。
+ * 各回の終わりに全スレッドの集計を合わせ、重みごとに「誤差の合計 / (出現数 + {@link #SMOOTHING})」に学習率を掛けて更新します。<br>
+ * 各対局の乱数のシードは「シード + 対局番号」をかき混ぜた値で決まります。<br>
+ * 引数：マス数 対局数 シード スレッド数 出力ファイル [段階数] [読む深さ] [初期の重みファイル]
+ * （省略時は 段階数 6、読む深さ 2、初期の重みは0）
+ */
+public class WeightTrainer {
+
+	// 1回に行う対局数
+	private static final int GAMES_PER_ROUND = 2000;
+	// 学習率
+	private static final double LEARNING_RATE = 0.05;
+	// 出現数の少ない重みの更新を抑える値
+	static final int SMOOTHING = 8;
+
+	private final int squareCount;
+	private final int games;
+	private final long seed;
+	private final int threadCount;
+	private final int depth;
+	// 序盤にランダムに打つ手数
+	private final int openingPlies;
+
+	// [段階][添字] の重み（評価値の単位）。対局中は読み取りだけ行い、回の終わりに更新する。
+	private final float[][] weights;
+
+	// 次に対局する対局番号
+	private final AtomicInteger nextGame = new AtomicInteger();
+
+	/**
+	 * @param squareCount 縦と横のマス数
+	 * @param games 対局数
+	 * @param seed 乱数のシード
+	 * @param threadCount 並行に対局するスレッド数
+	 * @param phases 段階数
+	 * @param depth 自己対局で読む深さ
+	 * @param initial 初期の重み（0から学習する場合はnull）
+	 */
+	WeightTrainer(int squareCount, int games, long seed, int threadCount, int phases, int depth,
+			PatternEvaluator initial) {
+		if (squareCount < 4 || squareCount > 50 || squareCount % 2 == 1) {
+			throw new IllegalArgumentException("マス数は4以上50以下の偶数を指定してください。");
+		}
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("スレッド数は1以上を指定してください。");
+		}
+		if (phases <= 0 || depth <= 0) {
+			throw new IllegalArgumentException("段階数と読む深さは1以上を指定してください。");
+		}
+		if (initial != null && initial.getPhaseCount() != phases) {
+			throw new IllegalArgumentException("初期の重みの段階数が一致しません：" + initial.getPhaseCount());
+		}
+		this.squareCount = squareCount;
+		this.games = games;
+		this.seed = seed;
+		this.threadCount = threadCount;
+		this.depth = depth;
+		this.openingPlies = squareCount;
+		this.weights = new float[phases][PatternEvaluator.getWeightsPerPhase()];
+		if (initial != null) {
+			short[][] source = initial.getWeights();
+			for (int phase = 0; phase < phases; phase++) {
+				for (int index = 0; index < source[phase].length; index++) {
+					weights[phase][index] = source[phase][index];
+				}
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 5) {
+			print("引数：マス数 対局数 シード スレッド数 出力ファイル [段階数] [読む深さ] [初期の重みファイル]");
+			return;
+		}
+		PatternEvaluator initial = args.length > 7 ? PatternEvaluator.load(Paths.get(args[7])) : null;
+		WeightTrainer trainer = new WeightTrainer(
+				Integer.parseInt(args[0]),
+				Integer.parseInt(args[1]),
+				Long.parseLong(args[2]),
+				Integer.parseInt(args[3]),
+				args.length > 5 ? Integer.parseInt(args[5]) : 6,
+				args.length > 6 ? Integer.parseInt(args[6]) : 2,
+				initial);
+		Path output = Paths.get(args[4]);
+		trainer.run(output);
+		print("重みファイルを書き出しました：" + output);
+	}
+
+	/**
+	 * 全対局を行って重みを学習し、回ごとに重みファイルを書き出す。
+	 * @param output 書き出し先
+	 */
+	void run(Path output) {
+		nextGame.set(0);
+		long start = System.nanoTime();
+		long positions = 0;
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			Accumulator[] accumulators = new Accumulator[threadCount];
+			for (int index = 0; index < threadCount; index++) {
+				accumulators[index] = new Accumulator(weights.length);
+			}
+			for (int round = 0; round * GAMES_PER_ROUND < games; round++) {
+				int roundEnd = Math.min(games, (round + 1) * GAMES_PER_ROUND);
+				// 最初の回は重みが全て0なので、標準の評価関数で対局する。
+				Evaluator evaluator = round == 0 && isZero() ? new BasicEvaluator() : toEvaluator();
+				List<Future<?>> futures = new ArrayList<>();
+				for (Accumulator accumulator : accumulators) {
+					futures.add(executor.submit(() -> playGames(roundEnd, evaluator, accumulator)));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+				Accumulator total = accumulators[0];
+				for (int index = 1; index < accumulators.length; index++) {
+					total.add(accumulators[index]);
+					accumulators[index].clear();
+				}
+				update(total);
+				positions += total.positions;
+				print(String.format("%d/%d局・%d局面 誤差%.2f石（%.0f局面/秒）", roundEnd, games, positions,
+						Math.sqrt(total.squaredError / Math.max(1, total.positions)) / PatternEvaluator.DISC_SCALE,
+						positions * 1_000_000_000.0 / (System.nanoTime() - start)));
+				total.clear();
+				toEvaluator().save(output);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("学習が中断されました。", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("学習中にエラーが発生しました。", e.getCause());
+		} catch (IOException e) {
+			throw new UncheckedIOException("重みファイルを書き込めませんでした。", e);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private boolean isZero() {
+		for (float[] phase : weights) {
+			for (float weight : phase) {
+				if (weight != 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 現在の重みを評価関数に変換する（重みは short の範囲に丸める）。
+	 */
+	PatternEvaluator toEvaluator() {
+		short[][] rounded = new short[weights.length][weights[0].length];
+		for (int phase = 0; phase < weights.length; phase++) {
+			for (int index = 0; index < weights[phase].length; index++) {
+				rounded[phase][index] = (short) Math.max(Short.MIN_VALUE,
+						Math.min(Short.MAX_VALUE, Math.round(weights[phase][index])));
+			}
+		}
+		return new PatternEvaluator(rounded);
+	}
+
+	/**
+	 * 集計した誤差で重みを更新する。
+	 */
+	private void update(Accumulator total) {
+		for (int phase = 0; phase < weights.length; phase++) {
+			float[] phaseWeights = weights[phase];
+			double[] errors = total.errors[phase];
+			int[] counts = total.counts[phase];
+			for (int index = 0; index < phaseWeights.length; index++) {
+				if (counts[index] > 0) {
+					phaseWeights[index] += (float) (LEARNING_RATE * errors[index] / (counts[index] + SMOOTHING));
+				}
+			}
+		}
+	}
+
+	/**
+	 * 対局番号を1つずつ取得して、回の終わりまで対局し、誤差を集計する（スレッドごとに呼び出す）。
+	 * @param roundEnd この回の最後の対局番号 + 1
+	 * @param evaluator 対局に使う評価関数
+	 * @param accumulator 誤差の集計先
+	 */
+	private void playGames(int roundEnd, Evaluator evaluator, Accumulator accumulator) {
+		Random random = new Random();
+		SearchStrategy strategy = new SearchStrategy(SearchStrategy.DEFAULT_TIME_LIMIT_MILLIS, 1, 1, evaluator);
+		strategy.setDepthLimit(depth);
+		strategy.setEndgameEmpties(depth);
+		int squares = squareCount * squareCount;
+		int[] moves = new int[squares];
+		// 着手後の局面ごとの、黒番・白番から見た添字と段階
+		int instances = PatternEvaluator.Indices.of(Board.create(squareCount)).get(Piece.BLACK).length;
+		int[][] blackIndices = new int[squares][instances];
+		int[][] whiteIndices = new int[squares][instances];
+		int[] phases = new int[squares];
+		int game;
+		while ((game = nextGame.getAndIncrement()) < roundEnd) {
+			random.setSeed(mixSeed(seed + game));
+			// 前の対局の置換表などが着手に影響しないように、探索の状態を消去する。
+			strategy.reset();
+			Board board = Board.create(squareCount);
+			board.init();
+			PatternEvaluator.Indices indices = PatternEvaluator.Indices.of(board);
+			Piece piece = Piece.BLACK;
+			int plies = 0;
+			int recorded = 0;
+			while (true) {
+				int count = board.legalMoves(piece, moves);
+				if (count == 0) {
+					piece = piece.opponent();
+					if (board.legalMoveCount(piece) == 0) {
+						break;
+					}
+					continue;
+				}
+				int move = plies < openingPlies ? moves[random.nextInt(count)] : strategy.selectMove(board, piece);
+				board.putPiece(move % squareCount, move / squareCount, piece);
+				board.turnOver(move % squareCount, move / squareCount, piece);
+				plies++;
+				// ランダムに打った序盤の局面は学習に使わない。
+				if (plies >= openingPlies) {
+					System.arraycopy(indices.get(Piece.BLACK), 0, blackIndices[recorded], 0, instances);
+					System.arraycopy(indices.get(Piece.WHITE), 0, whiteIndices[recorded], 0, instances);
+					phases[recorded] = indices.getPhase(weights.length);
+					recorded++;
+				}
+				piece = piece.opponent();
+			}
+			int target = (board.count(Piece.BLACK) - board.count(Piece.WHITE)) * PatternEvaluator.DISC_SCALE;
+			for (int position = 0; position < recorded; position++) {
+				accumulator.record(weights[phases[position]], phases[position], blackIndices[position], target);
+				accumulator.record(weights[phases[position]], phases[position], whiteIndices[position], -target);
+			}
+		}
+	}
+
+	/**
+	 * スレッドごとの誤差の集計。
+	 */
+	private static final class Accumulator {
+
+		// [段階][添字] の誤差の合計と出現数
+		private final double[][] errors;
+		private final int[][] counts;
+		private long positions;
+		private double squaredError;
+
+		Accumulator(int phases) {
+			errors = new double[phases][PatternEvaluator.getWeightsPerPhase()];
+			counts = new int[phases][PatternEvaluator.getWeightsPerPhase()];
+		}
+
+		/**
+		 * 1局面の予測と正解の誤差を、局面に現れた添字に加える。
+		 */
+		void record(float[] phaseWeights, int phase, int[] indices, int target) {
+			double prediction = 0;
+			for (int index : indices) {
+				prediction += phaseWeights[index];
+			}
+			double error = target - prediction;
+			double[] phaseErrors = errors[phase];
+			int[] phaseCounts = counts[phase];
+			for (int index : indices) {
+				phaseErrors[index] += error;
+				phaseCounts[index]++;
+			}
+			positions++;
+			squaredError += error * error;
+		}
+
+		void add(Accumulator other) {
+			for (int phase = 0; phase < errors.length; phase++) {
+				for (int index = 0; index < errors[phase].length; index++) {
+					errors[phase][index] += other.errors[phase][index];
+					counts[phase][index] += other.counts[phase][index];
+				}
+			}
+			positions += other.positions;
+			squaredError += other.squaredError;
+		}
+
+		void clear() {
+			for (int phase = 0; phase < errors.length; phase++) {
+				Arrays.fill(errors[phase], 0);
+				Arrays.fill(counts[phase], 0);
+			}
+			positions = 0;
+			squaredError = 0;
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+package othello;
+
+import java.util.SplittableRandom;
+
+/**
+ * 局面のハッシュ値（Zobristハッシュ）に使う乱数表。<br>
+ * マス数ごとに固定のシードで作成するため、同じ局面は実行のたびに同じハッシュ値になります。
+ */
+final public class Zobrist {
+
+	// 手番が白の場合に局面のハッシュ値へ加える値
+	static final long WHITE_TO_MOVE = 0x9e3779b97f4a7c15L;
+
+	// マス数ごとの乱数表（添字は 駒の序数 × マス数の2乗 + マス位置）
+	private static final long[][] KEYS = new long[51][];
+
+	private Zobrist() {
+	}
+
+	/**
+	 * 指定したマス数の乱数表を取得する。<br>
+	 * 空のマスの値は0なので、駒の置き換えは「変更前の値 ^ 変更後の値」で反映できます。
+	 * @param squareCount 縦と横のマス数
+	 * @return 乱数表
+	 */
+	static synchronized long[] keys(int squareCount) {
+		if (KEYS[squareCount] == null) {
+			int squares = squareCount * squareCount;
+			long[] keys = new long[Piece.values().length * squares];
+			SplittableRandom random = new SplittableRandom(squareCount);
+			for (int index = 0; index < squares * 2; index++) {
+				keys[Piece.BLACK.ordinal() * squares + index] = random.nextLong();
+			}
+			KEYS[squareCount] = keys;
+		}
+		return KEYS[squareCount];
+	}
+
+	/**
+	 * 指定したマスの駒に対応する値を取得する。
+	 * @param keys 乱数表
+	 * @param squares マス数の2乗
+	 * @param square マス位置（行番号 × マス数 + 列番号）
+	 * @param piece 駒
+	 * @return 乱数表の値
+	 */
+	static long key(long[] keys, int squares, int square, Piece piece) {
+		return keys[piece.ordinal() * squares + square];
+	}
+
+}